@@ -0,0 +1,56 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that every result is
+ * reported both as throughput and as allocation rate. Any standard JMH
+ * command line options may be passed as arguments.
+ */
+public final class BenchmarkMain {
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BenchmarkMain() {
+        // Do nothing.
+    }
+    
+    /**
+     * Runs the benchmarks.
+     * 
+     * @param args The JMH command line options.
+     * @throws Exception If the benchmarks could not be run.
+     */
+    public static void main(final String[] args) throws Exception {
+        final Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,142 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.bspfsystems.pluginevents.Cancellable;
+import org.bspfsystems.pluginevents.Event;
+import org.bspfsystems.pluginevents.EventBus;
+import org.bspfsystems.pluginevents.EventHandler;
+import org.bspfsystems.pluginevents.EventListener;
+import org.bspfsystems.pluginevents.EventPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link EventBus#callEvent(Event)} for a
+ * {@link Cancellable} {@link Event} that is either left alone or cancelled
+ * early, ahead of many {@link EventHandler EventHandlers} that ignore
+ * cancelled {@link Event Events}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CancellationBenchmark {
+    
+    private static final Logger LOGGER = Logger.getLogger(CancellationBenchmark.class.getSimpleName());
+    private static final int IGNORING_HANDLERS = 50;
+    
+    @Param({"false", "true"})
+    public boolean cancelled;
+    
+    private EventBus eventBus;
+    private CancellableEvent event;
+    
+    /**
+     * Registers the {@link EventHandler EventHandlers} for the trial.
+     */
+    @Setup
+    public void setUp() {
+        this.eventBus = EventBus.getInstance();
+        this.event = new CancellableEvent();
+        this.event.cancel = this.cancelled;
+        
+        this.eventBus.registerListener(new CancellingListener(), CancellationBenchmark.LOGGER);
+        for (int index = 0; index < CancellationBenchmark.IGNORING_HANDLERS; index++) {
+            this.eventBus.registerListener(new IgnoringListener(), CancellationBenchmark.LOGGER);
+        }
+        this.eventBus.registerListener(new MonitorListener(), CancellationBenchmark.LOGGER);
+    }
+    
+    /**
+     * Unregisters the {@link EventHandler EventHandlers} for the trial.
+     */
+    @TearDown
+    public void tearDown() {
+        this.eventBus.unregisterAll(CancellationBenchmark.LOGGER);
+    }
+    
+    /**
+     * Calls the {@link Event}.
+     * 
+     * @return Whether the {@link Event} was cancelled.
+     */
+    @Benchmark
+    public boolean callEvent() {
+        this.event.setCancelled(false);
+        return this.eventBus.callEvent(this.event);
+    }
+    
+    /**
+     * The {@link Cancellable} {@link Event} that is called.
+     */
+    public static final class CancellableEvent extends Event implements Cancellable {
+        
+        private boolean cancel;
+        private boolean cancelled;
+        private int handled;
+        
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+        
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+    
+    public static final class CancellingListener implements EventListener {
+        @EventHandler(priority = EventPriority.LOW)
+        public void onEvent(final CancellableEvent event) {
+            event.setCancelled(event.cancel);
+        }
+    }
+    
+    public static final class IgnoringListener implements EventListener {
+        @EventHandler(priority = EventPriority.NORMAL, ignoreCancelled = true)
+        public void onEvent(final CancellableEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class MonitorListener implements EventListener {
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+        public void onEvent(final CancellableEvent event) {
+            event.handled++;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.bspfsystems.pluginevents.Event;
+import org.bspfsystems.pluginevents.EventBus;
+import org.bspfsystems.pluginevents.EventHandler;
+import org.bspfsystems.pluginevents.EventListener;
+import org.bspfsystems.pluginevents.EventPriority;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link EventBus#callEvent(Event)} for different
+ * numbers of {@link EventHandler EventHandlers}, with either a single
+ * {@link EventPriority} or handlers spread across all of them, on one thread
+ * and on several threads at once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+    
+    private static final Logger LOGGER = Logger.getLogger(DispatchBenchmark.class.getSimpleName());
+    
+    @Param({"0", "1", "10", "100"})
+    public int handlers;
+    
+    @Param({"single", "mixed"})
+    public String priorities;
+    
+    private EventBus eventBus;
+    
+    /**
+     * Registers the {@link EventHandler EventHandlers} for the trial.
+     */
+    @Setup
+    public void setUp() {
+        this.eventBus = EventBus.getInstance();
+        final boolean mixed = "mixed".equals(this.priorities);
+        for (int index = 0; index < this.handlers; index++) {
+            this.eventBus.registerListener(mixed ? DispatchBenchmark.newListener(index) : new NormalListener(), DispatchBenchmark.LOGGER);
+        }
+    }
+    
+    /**
+     * Unregisters the {@link EventHandler EventHandlers} for the trial.
+     */
+    @TearDown
+    public void tearDown() {
+        this.eventBus.unregisterAll(DispatchBenchmark.LOGGER);
+    }
+    
+    /**
+     * Calls the {@link Event} on a single thread.
+     * 
+     * @param state The per-thread {@link Event}.
+     * @return Whether the {@link Event} was cancelled.
+     */
+    @Benchmark
+    public boolean callEvent(final EventState state) {
+        return this.eventBus.callEvent(state.event);
+    }
+    
+    /**
+     * Calls the {@link Event} on several threads at once.
+     * 
+     * @param state The per-thread {@link Event}.
+     * @return Whether the {@link Event} was cancelled.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean callEventConcurrent(final EventState state) {
+        return this.eventBus.callEvent(state.event);
+    }
+    
+    /**
+     * Creates a listener for the mixed priority distribution, cycling
+     * through all {@link EventPriority EventPriorities}.
+     * 
+     * @param index The index of the listener.
+     * @return The new listener.
+     */
+    private static EventListener newListener(final int index) {
+        switch (index % 8) {
+            case 0:
+                return new LowestListener();
+            case 1:
+                return new LowerListener();
+            case 2:
+                return new LowListener();
+            case 3:
+                return new NormalListener();
+            case 4:
+                return new HighListener();
+            case 5:
+                return new HigherListener();
+            case 6:
+                return new HighestListener();
+            default:
+                return new MonitorListener();
+        }
+    }
+    
+    /**
+     * Holds the {@link Event} used by a single benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class EventState {
+        
+        private final DispatchEvent event = new DispatchEvent();
+    }
+    
+    /**
+     * The {@link Event} that is called.
+     */
+    public static final class DispatchEvent extends Event {
+        
+        private int handled;
+    }
+    
+    public static final class LowestListener implements EventListener {
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class LowerListener implements EventListener {
+        @EventHandler(priority = EventPriority.LOWER)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class LowListener implements EventListener {
+        @EventHandler(priority = EventPriority.LOW)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class NormalListener implements EventListener {
+        @EventHandler(priority = EventPriority.NORMAL)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class HighListener implements EventListener {
+        @EventHandler(priority = EventPriority.HIGH)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class HigherListener implements EventListener {
+        @EventHandler(priority = EventPriority.HIGHER)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class HighestListener implements EventListener {
+        @EventHandler(priority = EventPriority.HIGHEST)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+    
+    public static final class MonitorListener implements EventListener {
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onEvent(final DispatchEvent event) {
+            event.handled++;
+        }
+    }
+}
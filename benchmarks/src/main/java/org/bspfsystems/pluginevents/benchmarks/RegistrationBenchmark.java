@@ -0,0 +1,247 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.bspfsystems.pluginevents.Event;
+import org.bspfsystems.pluginevents.EventBus;
+import org.bspfsystems.pluginevents.EventHandler;
+import org.bspfsystems.pluginevents.EventListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of registering (and then unregistering) an
+ * {@link EventListener} with many {@link EventHandler} methods.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RegistrationBenchmark {
+    
+    private static final Logger LOGGER = Logger.getLogger(RegistrationBenchmark.class.getSimpleName());
+    
+    private EventBus eventBus;
+    
+    /**
+     * Gets the {@link EventBus} for the trial.
+     */
+    @Setup
+    public void setUp() {
+        this.eventBus = EventBus.getInstance();
+    }
+    
+    /**
+     * Registers a new {@link EventListener} with many
+     * {@link EventHandler EventHandlers}, and unregisters it again so that
+     * the registrations do not accumulate.
+     */
+    @Benchmark
+    public void registerListener() {
+        this.eventBus.registerListener(new ManyHandlersListener(), RegistrationBenchmark.LOGGER).unregister();
+    }
+    
+    /**
+     * The {@link Event} handled by the {@link ManyHandlersListener}.
+     */
+    public static final class RegistrationEvent extends Event {
+        
+        private int handled;
+    }
+    
+    /**
+     * An {@link EventListener} with 32 {@link EventHandler} methods.
+     */
+    public static final class ManyHandlersListener implements EventListener {
+        
+        @EventHandler
+        public void onEvent00(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent01(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent02(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent03(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent04(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent05(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent06(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent07(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent08(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent09(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent10(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent11(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent12(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent13(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent14(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent15(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent16(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent17(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent18(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent19(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent20(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent21(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent22(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent23(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent24(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent25(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent26(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent27(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent28(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent29(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent30(final RegistrationEvent event) {
+            event.handled++;
+        }
+        
+        @EventHandler
+        public void onEvent31(final RegistrationEvent event) {
+            event.handled++;
+        }
+    }
+}
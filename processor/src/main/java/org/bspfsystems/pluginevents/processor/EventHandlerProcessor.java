@@ -0,0 +1,343 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import org.bspfsystems.pluginevents.Event;
+import org.bspfsystems.pluginevents.EventHandler;
+import org.bspfsystems.pluginevents.EventListener;
+import org.bspfsystems.pluginevents.ListenerRegistrar;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Generates a {@link ListenerRegistrar} for each concrete
+ * {@link EventListener} class that declares {@link EventHandler} methods.
+ * <p>
+ * The generated {@link ListenerRegistrar} calls each {@link EventHandler}
+ * method directly, and is found by the
+ * {@link org.bspfsystems.pluginevents.EventBus EventBus} by name at runtime.
+ * It covers the same {@link EventHandler} methods that the
+ * {@link org.bspfsystems.pluginevents.EventBus EventBus} would find
+ * reflectively: those declared by the class itself, and the public ones that
+ * it inherits.
+ * <p>
+ * If any of those methods cannot be called from generated code in the same
+ * package (for example, if it is private), has
+ * {@link EventHandler#filters() filters}, or takes a {@link List} of
+ * {@link org.bspfsystems.pluginevents.Event Events}, no
+ * {@link ListenerRegistrar} is generated for the class, and it is registered
+ * reflectively as before.
+ */
+@SupportedAnnotationTypes("org.bspfsystems.pluginevents.EventHandler")
+public final class EventHandlerProcessor extends AbstractProcessor {
+    
+    private static final String REGISTRAR = ListenerRegistrar.class.getCanonicalName();
+    private static final String PRIORITY = "org.bspfsystems.pluginevents.EventPriority";
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NotNull
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean process(@NotNull final Set<? extends TypeElement> annotations, @NotNull final RoundEnvironment roundEnv) {
+        
+        final LinkedHashSet<TypeElement> listeners = new LinkedHashSet<TypeElement>();
+        for (final Element element : roundEnv.getElementsAnnotatedWith(EventHandler.class)) {
+            if (element.getKind() == ElementKind.METHOD && element.getEnclosingElement() instanceof TypeElement) {
+                listeners.add((TypeElement) element.getEnclosingElement());
+            }
+        }
+        
+        for (final TypeElement listener : listeners) {
+            if (this.isConcreteListener(listener)) {
+                this.generate(listener);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Checks if the specified type is a concrete, nameable class that
+     * implements {@link EventListener}.
+     * 
+     * @param type The type to check.
+     * @return {@code true} if a {@link ListenerRegistrar} can be generated for
+     *         the type, {@code false} otherwise.
+     */
+    private boolean isConcreteListener(@NotNull final TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+            return false;
+        }
+        final TypeElement eventListener = this.processingEnv.getElementUtils().getTypeElement(EventListener.class.getCanonicalName());
+        return this.processingEnv.getTypeUtils().isAssignable(this.erasure(type.asType()), this.erasure(eventListener.asType()));
+    }
+    
+    /**
+     * Generates the {@link ListenerRegistrar} for the specified
+     * {@link EventListener} class.
+     * 
+     * @param listener The {@link EventListener} class.
+     */
+    private void generate(@NotNull final TypeElement listener) {
+        
+        final PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(listener);
+        if (!this.isAccessible(listener, pkg)) {
+            this.note(listener, "EventListener class is private; it will be registered reflectively.");
+            return;
+        }
+        
+        final List<String> handlers = new ArrayList<String>();
+        for (final ExecutableElement method : ElementFilter.methodsIn(this.processingEnv.getElementUtils().getAllMembers(listener))) {
+            final EventHandler eventHandler = method.getAnnotation(EventHandler.class);
+            if (eventHandler == null) {
+                continue;
+            }
+            
+            final TypeElement declaring = (TypeElement) method.getEnclosingElement();
+            if (!declaring.equals(listener) && !method.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            
+            final List<? extends VariableElement> parameters = method.getParameters();
+            if (parameters.size() != 1) {
+                this.warn(method, "Method marked as an EventHandler has too " + (parameters.isEmpty() ? "few" : "many") + " parameters. Cannot use as an EventHandler.");
+                continue;
+            }
+            
+            final TypeMirror parameter = this.erasure(parameters.get(0).asType());
+            if (parameter.toString().equals(List.class.getName())) {
+                this.note(listener, "EventHandler method " + method.getSimpleName() + " is a batch EventHandler; the EventListener will be registered reflectively.");
+                return;
+            }
+            
+            final TypeElement parameterType = parameter.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) parameter).asElement() : null;
+            if (parameterType == null || (parameterType.getKind() != ElementKind.INTERFACE && !this.isEvent(parameter))) {
+                this.warn(method, "Method marked as EventHandler does not have an Event parameter. Cannot use as an EventHandler.");
+                continue;
+            }
+            
+            if (!this.isAccessible(method, declaring, pkg) || !this.isAccessible(declaring, pkg) || !this.isAccessible(parameterType, pkg)) {
+                this.note(listener, "EventHandler method " + method.getSimpleName() + " cannot be called from generated code; the EventListener will be registered reflectively.");
+                return;
+            }
+            
+            if (this.hasFilters(eventHandler)) {
+                this.note(listener, "EventHandler method " + method.getSimpleName() + " has filters; the EventListener will be registered reflectively.");
+                return;
+            }
+            
+            handlers.add(this.describe(listener, declaring, method, parameter, eventHandler));
+        }
+        
+        if (handlers.isEmpty()) {
+            return;
+        }
+        
+        final String binaryName = this.processingEnv.getElementUtils().getBinaryName(listener).toString();
+        final String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        final String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + ListenerRegistrar.SUFFIX;
+        final String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        
+        try (final Writer writer = this.processingEnv.getFiler().createSourceFile(qualifiedName, listener).openWriter();
+             final PrintWriter out = new PrintWriter(writer)) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Generated by " + EventHandlerProcessor.class.getName() + " for {@link " + listener.getQualifiedName() + "}. Do not edit.");
+            out.println(" */");
+            out.println("@SuppressWarnings({\"rawtypes\", \"unchecked\"})");
+            out.println("public final class " + simpleName + " implements " + EventHandlerProcessor.REGISTRAR + " {");
+            out.println("    ");
+            out.println("    @Override");
+            out.println("    public void collectHandlers(final " + EventHandlerProcessor.REGISTRAR + ".Collector collector) {");
+            for (final String handler : handlers) {
+                out.println("        " + handler);
+            }
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write " + qualifiedName + ": " + e.getMessage(), listener);
+        }
+    }
+    
+    /**
+     * Checks if the specified {@link EventHandler} names any filters. The
+     * filter classes may not have been compiled yet, so they are only checked
+     * as {@link TypeMirror TypeMirrors}.
+     * 
+     * @param eventHandler The {@link EventHandler} annotation.
+     * @return {@code true} if the {@link EventHandler} has filters,
+     *         {@code false} otherwise.
+     */
+    private boolean hasFilters(@NotNull final EventHandler eventHandler) {
+        try {
+            return eventHandler.filters().length != 0;
+        } catch (MirroredTypesException e) {
+            return !e.getTypeMirrors().isEmpty();
+        }
+    }
+    
+    /**
+     * Creates the statement that describes the specified {@link EventHandler}
+     * method to the {@link ListenerRegistrar.Collector}.
+     * 
+     * @param listener The {@link EventListener} class.
+     * @param declaring The class that declares the method.
+     * @param method The {@link EventHandler} method.
+     * @param parameter The erased type of the parameter of the method.
+     * @param eventHandler The {@link EventHandler} annotation on the method.
+     * @return The generated statement.
+     */
+    @NotNull
+    private String describe(@NotNull final TypeElement listener, @NotNull final TypeElement declaring, @NotNull final ExecutableElement method, @NotNull final TypeMirror parameter, @NotNull final EventHandler eventHandler) {
+        
+        final boolean isStatic = method.getModifiers().contains(Modifier.STATIC);
+        final String target = isStatic ? this.erasure(declaring.asType()).toString() : "((" + this.erasure(listener.asType()) + ") listener)";
+        final String call = target + "." + method.getSimpleName() + "((" + parameter + ") event)";
+        
+        return "collector.handler("
+                + this.erasure(declaring.asType()) + ".class, "
+                + parameter + ".class, "
+                + "\"" + method.getSimpleName() + "\", "
+                + EventHandlerProcessor.PRIORITY + "." + eventHandler.priority().name() + ", "
+                + eventHandler.order() + ", "
+                + eventHandler.ignoreCancelled() + ", "
+                + eventHandler.blocking() + ", "
+                + isStatic + ", "
+                + "(listener, event) -> " + call + ", "
+                + "listener -> event -> " + call + ");";
+    }
+    
+    /**
+     * Checks if the specified type is a subtype of {@link Event}.
+     * 
+     * @param type The type to check.
+     * @return {@code true} if the type is an {@link Event}, {@code false}
+     *         otherwise.
+     */
+    private boolean isEvent(@NotNull final TypeMirror type) {
+        final TypeElement event = this.processingEnv.getElementUtils().getTypeElement(Event.class.getCanonicalName());
+        return this.processingEnv.getTypeUtils().isAssignable(type, this.erasure(event.asType()));
+    }
+    
+    /**
+     * Checks if the specified type, and every type enclosing it, can be named
+     * from the specified package.
+     * 
+     * @param type The type to check.
+     * @param pkg The package of the generated {@link ListenerRegistrar}.
+     * @return {@code true} if the type is accessible, {@code false} otherwise.
+     */
+    private boolean isAccessible(@NotNull final TypeElement type, @NotNull final PackageElement pkg) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            if (!this.isAccessible(element, (TypeElement) element, pkg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Checks if the specified member of the specified type can be accessed
+     * from the specified package.
+     * 
+     * @param member The member to check.
+     * @param declaring The type that declares the member.
+     * @param pkg The package of the generated {@link ListenerRegistrar}.
+     * @return {@code true} if the member is accessible, {@code false}
+     *         otherwise.
+     */
+    private boolean isAccessible(@NotNull final Element member, @NotNull final TypeElement declaring, @NotNull final PackageElement pkg) {
+        if (member.getModifiers().contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        return member.getModifiers().contains(Modifier.PUBLIC) || this.processingEnv.getElementUtils().getPackageOf(declaring).equals(pkg);
+    }
+    
+    /**
+     * Gets the erasure of the specified type.
+     * 
+     * @param type The type to erase.
+     * @return The erased type.
+     */
+    @NotNull
+    private TypeMirror erasure(@NotNull final TypeMirror type) {
+        return this.processingEnv.getTypeUtils().erasure(type);
+    }
+    
+    /**
+     * Reports a warning about the specified {@link Element}.
+     * 
+     * @param element The {@link Element} the warning is about.
+     * @param message The warning message.
+     */
+    private void warn(@Nullable final Element element, @NotNull final String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+    
+    /**
+     * Reports a note about the specified {@link Element}.
+     * 
+     * @param element The {@link Element} the note is about.
+     * @param message The note message.
+     */
+    private void note(@Nullable final Element element, @NotNull final String message) {
+        this.processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
@@ -0,0 +1,127 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Provides the default {@link Executor} for {@link EventHandler EventHandlers}
+ * that are marked as {@link EventHandler#blocking() blocking}.
+ * <p>
+ * If the runtime supports virtual threads (Java 21+), each blocking
+ * {@link EventHandler} runs on its own virtual thread. Otherwise, a bounded
+ * pool of daemon platform threads is used. The {@link Executor} is only
+ * created the first time it is needed.
+ */
+final class BlockingExecutors {
+    
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors());
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private BlockingExecutors() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets the default {@link Executor} for blocking
+     * {@link EventHandler EventHandlers}.
+     * 
+     * @return The default {@link Executor}.
+     */
+    @NotNull
+    static Executor getDefault() {
+        return Holder.DEFAULT;
+    }
+    
+    /**
+     * Creates the default {@link Executor}, preferring virtual threads.
+     * 
+     * @return The new {@link Executor}.
+     */
+    @NotNull
+    private static Executor create() {
+        final Executor virtual = BlockingExecutors.createVirtual();
+        return virtual != null ? virtual : Executors.newFixedThreadPool(BlockingExecutors.POOL_SIZE, new BlockingThreadFactory());
+    }
+    
+    /**
+     * Creates an {@link Executor} that runs each task on a new virtual
+     * thread. This is looked up reflectively so that the library still runs
+     * on Java 8.
+     * 
+     * @return The new {@link Executor}, or {@code null} if virtual threads are
+     *         not supported by the runtime.
+     */
+    @Nullable
+    private static Executor createVirtual() {
+        try {
+            final Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Virtual threads are unavailable, or are a preview feature.
+            return null;
+        }
+    }
+    
+    /**
+     * Lazily holds the default {@link Executor}.
+     */
+    private static final class Holder {
+        
+        private static final Executor DEFAULT = BlockingExecutors.create();
+    }
+    
+    /**
+     * Creates the daemon platform threads used when virtual threads are not
+     * supported.
+     */
+    private static final class BlockingThreadFactory implements ThreadFactory {
+        
+        private final AtomicInteger count;
+        
+        /**
+         * Constructs a new {@link BlockingThreadFactory}.
+         */
+        private BlockingThreadFactory() {
+            this.count = new AtomicInteger();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public Thread newThread(@NotNull final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "PluginEvents-Blocking-" + this.count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
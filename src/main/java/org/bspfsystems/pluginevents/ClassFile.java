@@ -0,0 +1,362 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Builds the constant pool of a class generated at runtime, reusing entries
+ * that have already been added, and writes its fields and methods.
+ * <p>
+ * Generated classes use a class file version that predates stack map frames,
+ * so none need to be computed.
+ */
+final class ClassFile {
+    
+    private final Bytes constants;
+    private final HashMap<String, Integer> indexes;
+    private int count;
+    
+    /**
+     * Constructs a new, empty {@link ClassFile}.
+     */
+    ClassFile() {
+        this.constants = new Bytes();
+        this.indexes = new HashMap<String, Integer>();
+        this.count = 1;
+    }
+    
+    /**
+     * Gets the constant pool count, which is one more than the number of
+     * entries.
+     * 
+     * @return The constant pool count.
+     */
+    int count() {
+        return this.count;
+    }
+    
+    /**
+     * Gets the bytes of the constant pool entries.
+     * 
+     * @return The constant pool entries.
+     */
+    @NotNull
+    Bytes constants() {
+        return this.constants;
+    }
+    
+    /**
+     * Adds a UTF-8 entry. Only ASCII names and descriptors are used, so
+     * their modified UTF-8 encoding is the same as ASCII.
+     * 
+     * @param value The value of the entry.
+     * @return The index of the entry.
+     */
+    int utf8(@NotNull final String value) {
+        final Integer existing = this.indexes.get("Utf8:" + value);
+        if (existing != null) {
+            return existing;
+        }
+        this.constants.u1(1).u2(value.length());
+        for (int index = 0; index < value.length(); index++) {
+            this.constants.u1(value.charAt(index));
+        }
+        return this.add("Utf8:" + value);
+    }
+    
+    /**
+     * Adds a String entry.
+     * 
+     * @param value The value of the entry.
+     * @return The index of the entry.
+     */
+    int string(@NotNull final String value) {
+        final int valueIndex = this.utf8(value);
+        final Integer existing = this.indexes.get("String:" + value);
+        if (existing != null) {
+            return existing;
+        }
+        this.constants.u1(8).u2(valueIndex);
+        return this.add("String:" + value);
+    }
+    
+    /**
+     * Adds a Class entry.
+     * 
+     * @param name The internal name of the class.
+     * @return The index of the entry.
+     */
+    int classRef(@NotNull final String name) {
+        final int nameIndex = this.utf8(name);
+        final Integer existing = this.indexes.get("Class:" + name);
+        if (existing != null) {
+            return existing;
+        }
+        this.constants.u1(7).u2(nameIndex);
+        return this.add("Class:" + name);
+    }
+    
+    /**
+     * Adds a Fieldref entry.
+     * 
+     * @param owner The internal name of the class declaring the field.
+     * @param name The name of the field.
+     * @param descriptor The descriptor of the field.
+     * @return The index of the entry.
+     */
+    int fieldRef(@NotNull final String owner, @NotNull final String name, @NotNull final String descriptor) {
+        return this.memberRef(9, owner, name, descriptor);
+    }
+    
+    /**
+     * Adds a Methodref entry.
+     * 
+     * @param owner The internal name of the class declaring the method.
+     * @param name The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @return The index of the entry.
+     */
+    int methodRef(@NotNull final String owner, @NotNull final String name, @NotNull final String descriptor) {
+        return this.memberRef(10, owner, name, descriptor);
+    }
+    
+    /**
+     * Adds an InterfaceMethodref entry.
+     * 
+     * @param owner The internal name of the interface declaring the
+     *              method.
+     * @param name The name of the method.
+     * @param descriptor The descriptor of the method.
+     * @return The index of the entry.
+     */
+    int interfaceMethodRef(@NotNull final String owner, @NotNull final String name, @NotNull final String descriptor) {
+        return this.memberRef(11, owner, name, descriptor);
+    }
+    
+    /**
+     * Adds a Fieldref, Methodref or InterfaceMethodref entry, along with
+     * its NameAndType entry.
+     * 
+     * @param tag The tag of the entry.
+     * @param owner The internal name of the declaring class.
+     * @param name The name of the member.
+     * @param descriptor The descriptor of the member.
+     * @return The index of the entry.
+     */
+    private int memberRef(final int tag, @NotNull final String owner, @NotNull final String name, @NotNull final String descriptor) {
+        final int ownerIndex = this.classRef(owner);
+        final int nameIndex = this.utf8(name);
+        final int descriptorIndex = this.utf8(descriptor);
+        
+        final String nameAndTypeKey = "NameAndType:" + name + ":" + descriptor;
+        Integer nameAndType = this.indexes.get(nameAndTypeKey);
+        if (nameAndType == null) {
+            this.constants.u1(12).u2(nameIndex).u2(descriptorIndex);
+            nameAndType = this.add(nameAndTypeKey);
+        }
+        
+        final String key = tag + ":" + owner + ":" + name + ":" + descriptor;
+        final Integer existing = this.indexes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        this.constants.u1(tag).u2(ownerIndex).u2(nameAndType);
+        return this.add(key);
+    }
+    
+    /**
+     * Records the entry that was just written.
+     * 
+     * @param key The key identifying the entry.
+     * @return The index of the entry.
+     */
+    private int add(@NotNull final String key) {
+        final int index = this.count++;
+        this.indexes.put(key, index);
+        return index;
+    }
+    
+    /**
+     * Writes a field without any attributes.
+     * 
+     * @param out The {@link Bytes} to write to.
+     * @param access The access flags of the field.
+     * @param field The constant pool indexes of the name and descriptor of
+     *              the field.
+     */
+    static void field(@NotNull final Bytes out, final int access, @NotNull final int[] field) {
+        out.u2(access).u2(field[0]).u2(field[1]).u2(0);
+    }
+    
+    /**
+     * Writes a method with a single Code attribute.
+     * 
+     * @param out The {@link Bytes} to write to.
+     * @param access The access flags of the method.
+     * @param method The constant pool indexes of the name and descriptor of
+     *               the method.
+     * @param codeName The constant pool index of the name of the Code
+     *                 attribute.
+     * @param maxStack The maximum depth of the operand stack.
+     * @param maxLocals The number of local variables.
+     * @param code The bytecode of the method.
+     * @param exceptions The exception table entries of the method.
+     * @param exceptionCount The number of exception table entries.
+     */
+    static void method(@NotNull final Bytes out, final int access, @NotNull final int[] method, final int codeName, final int maxStack, final int maxLocals, @NotNull final Bytes code, @NotNull final Bytes exceptions, final int exceptionCount) {
+        out.u2(access).u2(method[0]).u2(method[1]).u2(1);
+        out.u2(codeName).u4(12 + code.size() + exceptions.size());
+        out.u2(maxStack).u2(maxLocals).u4(code.size()).bytes(code);
+        out.u2(exceptionCount).bytes(exceptions);
+        out.u2(0);
+    }
+    
+    /**
+     * A growable big-endian byte buffer, with support for patching the
+     * offsets of forward branches.
+     */
+    static final class Bytes {
+        
+        private byte[] bytes;
+        private int size;
+        
+        /**
+         * Constructs a new, empty {@link Bytes}.
+         */
+        Bytes() {
+            this.bytes = new byte[256];
+            this.size = 0;
+        }
+        
+        /**
+         * Gets the number of bytes written.
+         * 
+         * @return The number of bytes written.
+         */
+        int size() {
+            return this.size;
+        }
+        
+        /**
+         * Writes a single byte.
+         * 
+         * @param value The byte to write.
+         * @return This {@link Bytes}.
+         */
+        @NotNull
+        Bytes u1(final int value) {
+            if (this.size == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+            }
+            this.bytes[this.size++] = (byte) value;
+            return this;
+        }
+        
+        /**
+         * Writes two bytes.
+         * 
+         * @param value The value to write.
+         * @return This {@link Bytes}.
+         */
+        @NotNull
+        Bytes u2(final int value) {
+            return this.u1(value >>> 8).u1(value);
+        }
+        
+        /**
+         * Writes four bytes.
+         * 
+         * @param value The value to write.
+         * @return This {@link Bytes}.
+         */
+        @NotNull
+        Bytes u4(final int value) {
+            return this.u2(value >>> 16).u2(value);
+        }
+        
+        /**
+         * Writes all of the bytes of another {@link Bytes}.
+         * 
+         * @param other The {@link Bytes} to write.
+         * @return This {@link Bytes}.
+         */
+        @NotNull
+        Bytes bytes(@NotNull final Bytes other) {
+            for (int index = 0; index < other.size; index++) {
+                this.u1(other.bytes[index]);
+            }
+            return this;
+        }
+        
+        /**
+         * Writes the instruction that pushes the specified array index.
+         * 
+         * @param index The array index, which is at most
+         *              {@link DispatcherCompiler#MAX_HANDLERS}.
+         * @return This {@link Bytes}.
+         */
+        @NotNull
+        Bytes index(final int index) {
+            if (index <= 5) {
+                return this.u1(0x03 + index);
+            }
+            return this.u1(0x10).u1(index);
+        }
+        
+        /**
+         * Writes a forward branch instruction, whose offset is set later by
+         * {@link #target(int)}.
+         * 
+         * @param opcode The branch opcode.
+         * @return The position of the branch instruction.
+         */
+        int branch(final int opcode) {
+            final int position = this.size;
+            this.u1(opcode).u2(0);
+            return position;
+        }
+        
+        /**
+         * Points the branch instruction at the specified position to the
+         * current position.
+         * 
+         * @param branch The position of the branch instruction.
+         */
+        void target(final int branch) {
+            final int offset = this.size - branch;
+            this.bytes[branch + 1] = (byte) (offset >>> 8);
+            this.bytes[branch + 2] = (byte) offset;
+        }
+        
+        /**
+         * Copies the bytes written into a new array.
+         * 
+         * @return The bytes written.
+         */
+        @NotNull
+        byte[] toByteArray() {
+            return Arrays.copyOf(this.bytes, this.size);
+        }
+    }
+}
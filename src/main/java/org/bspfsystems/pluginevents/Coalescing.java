@@ -0,0 +1,49 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implemented by some {@link Event Events} if only their latest state
+ * matters, such as position updates or changes to a statistic.
+ * <p>
+ * When offered to a {@link CoalescingQueue}, a {@link Coalescing}
+ * {@link Event} replaces any pending {@link Event} of the same type with an
+ * equal key, so {@link EventHandler EventHandlers} only see the latest one
+ * for each key each time the {@link CoalescingQueue} is flushed.
+ */
+public interface Coalescing {
+    
+    /**
+     * Gets the key that identifies what the state in the {@link Event}
+     * belongs to (a player, an entity, a statistic, etc.).
+     * <p>
+     * The key is compared using {@link Object#equals(Object)} and
+     * {@link Object#hashCode()}, so it should be an immutable value, such as
+     * a {@link java.util.UUID} or a {@link String}.
+     * 
+     * @return The coalescing key of the {@link Event}.
+     */
+    @NotNull
+    Object getCoalescingKey();
+}
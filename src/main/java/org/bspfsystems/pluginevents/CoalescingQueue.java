@@ -0,0 +1,186 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Queues high-frequency {@link Coalescing} {@link Event Events}, so that only
+ * the latest {@link Event} for each key is called on each flush.
+ * <p>
+ * Offering a {@link Coalescing} {@link Event} replaces any pending
+ * {@link Event} of the same type with an equal
+ * {@link Coalescing#getCoalescingKey() key}, keeping the position of the one
+ * it replaces. Any other {@link Event} is called immediately. The pending
+ * {@link Event Events} are called when the {@link CoalescingQueue} is
+ * flushed, either explicitly (such as once per tick) via {@link #flush()},
+ * or at a fixed interval via
+ * {@link #scheduleFlush(ScheduledExecutorService, long, TimeUnit)}. This way,
+ * {@link EventHandler EventHandlers} see at most one {@link Event} per key per
+ * flush, instead of every intermediate state.
+ * <p>
+ * {@link Event Events} may be offered from any thread. As they are called
+ * later, the result of cancelling a {@link Coalescing} {@link Event} can only
+ * be checked on the {@link Event} itself. Flushes never overlap, so the
+ * {@link Event Events} of one flush are always called before those of the
+ * next.
+ */
+public final class CoalescingQueue {
+    
+    private static final Logger LOGGER = Logger.getLogger(CoalescingQueue.class.getName());
+    
+    private final EventBus eventBus;
+    private final Object lock;
+    private final Object flushLock;
+    private LinkedHashMap<Map.Entry<Class<?>, Object>, Event> pending;
+    
+    /**
+     * Constructs a new {@link CoalescingQueue} that calls its
+     * {@link Event Events} on the specified {@link EventBus}.
+     * 
+     * @param eventBus The {@link EventBus} to call the
+     *                 {@link Event Events} on.
+     */
+    public CoalescingQueue(@NotNull final EventBus eventBus) {
+        this.eventBus = eventBus;
+        this.lock = new Object();
+        this.flushLock = new Object();
+        this.pending = new LinkedHashMap<Map.Entry<Class<?>, Object>, Event>();
+    }
+    
+    /**
+     * Gets the {@link EventBus} that the {@link Event Events} are called on.
+     * 
+     * @return The {@link EventBus} of this {@link CoalescingQueue}.
+     */
+    @NotNull
+    public EventBus getEventBus() {
+        return this.eventBus;
+    }
+    
+    /**
+     * Offers the specified {@link Event} to this {@link CoalescingQueue}.
+     * <p>
+     * If the {@link Event} is {@link Coalescing}, it is queued until the next
+     * flush, replacing any pending {@link Event} of the same type with an
+     * equal key. Otherwise, it is called immediately, as if by
+     * {@link EventBus#callEvent(Event)}.
+     * 
+     * @param event The {@link Event} to offer.
+     * @return {@code true} if the {@link Event} replaced a pending
+     *         {@link Event}, {@code false} otherwise.
+     */
+    public boolean offer(@NotNull final Event event) {
+        
+        if (!(event instanceof Coalescing)) {
+            this.eventBus.callEvent(event);
+            return false;
+        }
+        
+        final Map.Entry<Class<?>, Object> key = new AbstractMap.SimpleImmutableEntry<Class<?>, Object>(event.getClass(), ((Coalescing) event).getCoalescingKey());
+        synchronized (this.lock) {
+            return this.pending.put(key, event) != null;
+        }
+    }
+    
+    /**
+     * Gets the number of {@link Event Events} waiting for the next flush.
+     * 
+     * @return The number of pending {@link Event Events}.
+     */
+    public int getPendingCount() {
+        synchronized (this.lock) {
+            return this.pending.size();
+        }
+    }
+    
+    /**
+     * Calls all of the pending {@link Event Events}, in the order that their
+     * keys were first offered since the last flush, via
+     * {@link EventBus#callEvents(java.util.List)}.
+     * <p>
+     * {@link Event Events} offered while this is calling the pending ones are
+     * kept for the next flush. If another flush is already calling its
+     * {@link Event Events}, this waits for it to finish first.
+     * 
+     * @return The number of {@link Event Events} that were called.
+     */
+    public int flush() {
+        synchronized (this.flushLock) {
+            
+            final LinkedHashMap<Map.Entry<Class<?>, Object>, Event> flushed;
+            synchronized (this.lock) {
+                if (this.pending.isEmpty()) {
+                    return 0;
+                }
+                flushed = this.pending;
+                this.pending = new LinkedHashMap<Map.Entry<Class<?>, Object>, Event>();
+            }
+            
+            this.eventBus.callEvents(new ArrayList<Event>(flushed.values()));
+            return flushed.size();
+        }
+    }
+    
+    /**
+     * Schedules this {@link CoalescingQueue} to be flushed at a fixed
+     * interval on the specified {@link ScheduledExecutorService}.
+     * <p>
+     * To flush once per tick instead, call {@link #flush()} from the tick
+     * itself.
+     * <p>
+     * If a flush throws, the exception is logged and the flushes carry on,
+     * rather than the {@link ScheduledExecutorService} silently cancelling
+     * them.
+     * 
+     * @param executor The {@link ScheduledExecutorService} to flush on.
+     * @param interval The interval between flushes.
+     * @param unit The {@link TimeUnit} of the interval.
+     * @return The {@link ScheduledFuture} that can be used to cancel the
+     *         flushes.
+     */
+    @NotNull
+    public ScheduledFuture<?> scheduleFlush(@NotNull final ScheduledExecutorService executor, final long interval, @NotNull final TimeUnit unit) {
+        return executor.scheduleAtFixedRate(this::scheduledFlush, interval, interval, unit);
+    }
+    
+    /**
+     * Flushes this {@link CoalescingQueue} from a scheduled task, logging
+     * anything thrown instead of letting it cancel the schedule.
+     */
+    private void scheduledFlush() {
+        try {
+            this.flush();
+        } catch (RuntimeException e) {
+            CoalescingQueue.LOGGER.log(Level.WARNING, "Unable to flush the CoalescingQueue; its pending Events were dropped.", e);
+        }
+    }
+}
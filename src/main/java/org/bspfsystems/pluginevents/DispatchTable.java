@@ -0,0 +1,375 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the fully-resolved, priority-ordered
+ * {@link HandlerSlot HandlerSlots} for a single type of {@link Event}, as
+ * called by {@link EventBus#callEvent(Event)}.
+ * <p>
+ * Alongside the {@link HandlerSlot HandlerSlots}, this holds a precomputed
+ * index for each position of where to continue once the {@link Event} has
+ * been cancelled. This allows any run of {@link HandlerSlot HandlerSlots} that
+ * ignore cancelled {@link Event Events} to be skipped in a single step,
+ * rather than being checked one at a time.
+ * <p>
+ * If any {@link HandlerSlot HandlerSlots} were registered with a key, the
+ * {@link DispatchTable} also records the positions of the
+ * {@link HandlerSlot HandlerSlots} for each key. A {@link Keyed}
+ * {@link Event} is dispatched with a separate {@link DispatchTable} for its
+ * key, found with a single hash lookup, which merges the
+ * {@link HandlerSlot HandlerSlots} for that key with those registered
+ * without one. It is only built the first time an {@link Event} with that
+ * key is called, so that registering many keys does not copy the
+ * {@link HandlerSlot HandlerSlots} without a key for each of them.
+ * <p>
+ * Each distinct filter (see {@link EventHandler#filters()}) used by the
+ * {@link HandlerSlot HandlerSlots} is given an index, so that the result of
+ * testing it can be shared by all of them within a single call of the
+ * {@link Event}.
+ * <p>
+ * Once its type of {@link Event} has been called often enough, a
+ * {@link Dispatcher} may be generated for the {@link DispatchTable} and used
+ * in place of the generic dispatch loop.
+ */
+final class DispatchTable {
+    
+    static final DispatchTable EMPTY = new DispatchTable(new HandlerSlot[0]);
+    
+    private final HandlerSlot[] handlers;
+    private final int[] cancelledIndexes;
+    private final HandlerSlot[] allHandlers;
+    private final int[] unkeyedRanks;
+    private final HashMap<Object, KeyedHandlers> keyedHandlers;
+    private final Predicate<Event>[] filters;
+    private final int[][] filterIndexes;
+    private int calls;
+    private boolean compiled;
+    private volatile Dispatcher dispatcher;
+    
+    /**
+     * Constructs a new {@link DispatchTable} without any keyed
+     * {@link HandlerSlot HandlerSlots}.
+     * 
+     * @param handlers The priority-ordered {@link HandlerSlot HandlerSlots}.
+     *                 The array must not be modified afterwards.
+     */
+    DispatchTable(@NotNull final HandlerSlot[] handlers) {
+        this(handlers, null, null, null, true);
+    }
+    
+    /**
+     * Constructs a new {@link DispatchTable}.
+     * 
+     * @param handlers The priority-ordered {@link HandlerSlot HandlerSlots}
+     *                 registered without a key. The array must not be
+     *                 modified afterwards.
+     * @param allHandlers All of the priority-ordered
+     *                    {@link HandlerSlot HandlerSlots}, with or without a
+     *                    key, or {@code null} if there are no keyed ones.
+     * @param unkeyedRanks The index in {@code allHandlers} of each of the
+     *                     {@code handlers}, or {@code null} if there are no
+     *                     keyed {@link HandlerSlot HandlerSlots}.
+     * @param keyedHandlers The {@link KeyedHandlers} for each key, or
+     *                      {@code null} if there are none.
+     * @param compilable {@code true} if a {@link Dispatcher} may be generated
+     *                   for the {@link DispatchTable}, {@code false}
+     *                   otherwise.
+     */
+    private DispatchTable(@NotNull final HandlerSlot[] handlers, @Nullable final HandlerSlot[] allHandlers, @Nullable final int[] unkeyedRanks, @Nullable final HashMap<Object, KeyedHandlers> keyedHandlers, final boolean compilable) {
+        this.handlers = handlers;
+        this.cancelledIndexes = new int[handlers.length];
+        this.allHandlers = allHandlers;
+        this.unkeyedRanks = unkeyedRanks;
+        this.keyedHandlers = keyedHandlers;
+        this.calls = 0;
+        this.dispatcher = null;
+        
+        int next = handlers.length;
+        for (int index = handlers.length - 1; index >= 0; index--) {
+            if (!handlers[index].isIgnoreCancelled()) {
+                next = index;
+            }
+            this.cancelledIndexes[index] = next;
+        }
+        
+        final IdentityHashMap<Predicate<Event>, Integer> indexes = new IdentityHashMap<Predicate<Event>, Integer>();
+        int[][] filterIndexes = null;
+        for (int index = 0; index < handlers.length; index++) {
+            final Predicate<Event>[] slotFilters = handlers[index].getFilters();
+            if (slotFilters.length == 0) {
+                continue;
+            }
+            if (filterIndexes == null) {
+                filterIndexes = new int[handlers.length][];
+            }
+            filterIndexes[index] = new int[slotFilters.length];
+            for (int filter = 0; filter < slotFilters.length; filter++) {
+                filterIndexes[index][filter] = indexes.computeIfAbsent(slotFilters[filter], newIndex -> indexes.size());
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        final Predicate<Event>[] filters = (Predicate<Event>[]) new Predicate<?>[indexes.size()];
+        indexes.forEach((filter, index) -> filters[index] = filter);
+        this.filters = filters;
+        this.filterIndexes = filterIndexes;
+        
+        // The generated dispatchers do not test filters.
+        this.compiled = !compilable || filterIndexes != null;
+    }
+    
+    /**
+     * Creates the {@link DispatchTable} for the specified
+     * {@link HandlerSlot HandlerSlots}, some of which may have been
+     * registered with a key.
+     * 
+     * @param ordered The priority-ordered {@link HandlerSlot HandlerSlots}.
+     *                The array must not be modified afterwards.
+     * @return The new {@link DispatchTable}.
+     */
+    @NotNull
+    static DispatchTable create(@NotNull final HandlerSlot[] ordered) {
+        
+        final ArrayList<HandlerSlot> unkeyed = new ArrayList<HandlerSlot>(ordered.length);
+        final int[] unkeyedRanks = new int[ordered.length];
+        final HashMap<Object, KeyedHandlers> keyedHandlers = new HashMap<Object, KeyedHandlers>();
+        for (int rank = 0; rank < ordered.length; rank++) {
+            final Object key = ordered[rank].getKey();
+            if (key == null) {
+                unkeyedRanks[unkeyed.size()] = rank;
+                unkeyed.add(ordered[rank]);
+            } else {
+                keyedHandlers.computeIfAbsent(key, newKeyed -> new KeyedHandlers()).add(rank);
+            }
+        }
+        if (keyedHandlers.isEmpty()) {
+            return new DispatchTable(ordered);
+        }
+        
+        return new DispatchTable(unkeyed.toArray(new HandlerSlot[unkeyed.size()]), ordered, Arrays.copyOf(unkeyedRanks, unkeyed.size()), keyedHandlers, true);
+    }
+    
+    /**
+     * Gets the priority-ordered {@link HandlerSlot HandlerSlots}. The returned
+     * array must not be modified.
+     * 
+     * @return The priority-ordered {@link HandlerSlot HandlerSlots}.
+     */
+    @NotNull
+    HandlerSlot[] getHandlers() {
+        return this.handlers;
+    }
+    
+    /**
+     * Checks if this {@link DispatchTable} has no
+     * {@link HandlerSlot HandlerSlots} at all, with or without a key.
+     * 
+     * @return {@code true} if there are no {@link HandlerSlot HandlerSlots},
+     *         {@code false} otherwise.
+     */
+    boolean isEmpty() {
+        return this.handlers.length == 0 && this.keyedHandlers == null;
+    }
+    
+    /**
+     * Gets the {@link DispatchTable} to call a {@link Keyed} {@link Event}
+     * with the specified key, building it the first time it is needed.
+     * <p>
+     * No {@link Dispatcher} is ever generated for the {@link DispatchTable}
+     * of a key, as there may be very many keys, each of which would otherwise
+     * count its calls and define its own hidden class. Its
+     * {@link Event Events} always use the generic dispatch loop.
+     * 
+     * @param key The key of the {@link Event}, or {@code null} if it has none.
+     * @return The {@link DispatchTable} for the key, or this
+     *         {@link DispatchTable} if no {@link HandlerSlot HandlerSlots}
+     *         were registered for the key.
+     */
+    @NotNull
+    DispatchTable forKey(@Nullable final Object key) {
+        
+        if (this.keyedHandlers == null || key == null) {
+            return this;
+        }
+        final KeyedHandlers keyed = this.keyedHandlers.get(key);
+        if (keyed == null) {
+            return this;
+        }
+        
+        // Racing threads may each build the table, but they are identical.
+        DispatchTable table = keyed.table;
+        if (table == null) {
+            table = new DispatchTable(this.merge(keyed.ranks, keyed.size), null, null, null, false);
+            keyed.table = table;
+        }
+        return table;
+    }
+    
+    /**
+     * Merges the {@link HandlerSlot HandlerSlots} registered without a key
+     * with those at the specified indexes in the full order, keeping the
+     * full order.
+     * 
+     * @param keyedRanks The ascending indexes of the keyed
+     *                   {@link HandlerSlot HandlerSlots} in the full order.
+     * @param keyedCount The number of indexes in {@code keyedRanks} that are
+     *                   used.
+     * @return The merged, priority-ordered {@link HandlerSlot HandlerSlots}.
+     */
+    @NotNull
+    private HandlerSlot[] merge(@NotNull final int[] keyedRanks, final int keyedCount) {
+        
+        final HandlerSlot[] merged = new HandlerSlot[this.unkeyedRanks.length + keyedCount];
+        int unkeyed = 0;
+        int keyed = 0;
+        for (int index = 0; index < merged.length; index++) {
+            if (keyed == keyedCount || (unkeyed < this.unkeyedRanks.length && this.unkeyedRanks[unkeyed] < keyedRanks[keyed])) {
+                merged[index] = this.allHandlers[this.unkeyedRanks[unkeyed++]];
+            } else {
+                merged[index] = this.allHandlers[keyedRanks[keyed++]];
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * Gets the index of the first {@link HandlerSlot}, at or after the
+     * specified index, that is still called when the {@link Event} has been
+     * cancelled.
+     * 
+     * @param index The index to start from.
+     * @return The index of the next {@link HandlerSlot} that does not ignore
+     *         cancelled {@link Event Events}, or the number of
+     *         {@link HandlerSlot HandlerSlots} if there is none.
+     */
+    int nextWhenCancelled(final int index) {
+        return this.cancelledIndexes[index];
+    }
+    
+    /**
+     * Gets the indexes of the filters that an {@link Event} must pass before
+     * the {@link HandlerSlot} at the specified index is called.
+     * 
+     * @param index The index of the {@link HandlerSlot}.
+     * @return The indexes of the filters, or {@code null} if the
+     *         {@link HandlerSlot} has none.
+     */
+    @Nullable
+    int[] getFilterIndexes(final int index) {
+        return this.filterIndexes == null ? null : this.filterIndexes[index];
+    }
+    
+    /**
+     * Gets the filter at the specified index.
+     * 
+     * @param index The index of the filter, as returned by
+     *              {@link #getFilterIndexes(int)}.
+     * @return The filter.
+     */
+    @NotNull
+    Predicate<Event> getFilter(final int index) {
+        return this.filters[index];
+    }
+    
+    /**
+     * Gets the generated {@link Dispatcher} for this {@link DispatchTable}.
+     * 
+     * @return The generated {@link Dispatcher}, or {@code null} if one has
+     *         not been generated.
+     */
+    @Nullable
+    Dispatcher getDispatcher() {
+        return this.dispatcher;
+    }
+    
+    /**
+     * Sets the generated {@link Dispatcher} for this {@link DispatchTable}.
+     * 
+     * @param dispatcher The generated {@link Dispatcher}.
+     */
+    void setDispatcher(@NotNull final Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+    
+    /**
+     * Counts a call through the generic dispatch loop, and checks if a
+     * {@link Dispatcher} should now be generated.
+     * <p>
+     * The count is deliberately not synchronized, as it only needs to be
+     * approximate. Once it reaches the threshold, this returns {@code true}
+     * once (or, under a race, a few times), and never counts again.
+     * 
+     * @param threshold The number of calls to generate a {@link Dispatcher}
+     *                  after, or a negative number to never generate one.
+     * @return {@code true} if a {@link Dispatcher} should be generated,
+     *         {@code false} otherwise.
+     */
+    boolean countCall(final int threshold) {
+        if (this.compiled || threshold < 0 || this.calls++ < threshold) {
+            return false;
+        }
+        this.compiled = true;
+        return true;
+    }
+    
+    /**
+     * The {@link HandlerSlot HandlerSlots} registered for a single key, and
+     * the {@link DispatchTable} for the key once it has been built.
+     */
+    private static final class KeyedHandlers {
+        
+        private int[] ranks;
+        private int size;
+        private volatile DispatchTable table;
+        
+        /**
+         * Constructs a new, empty {@link KeyedHandlers}.
+         */
+        private KeyedHandlers() {
+            this.ranks = new int[1];
+            this.size = 0;
+            this.table = null;
+        }
+        
+        /**
+         * Adds the index of the next {@link HandlerSlot} for the key in the
+         * full order. This is only called while the {@link DispatchTable} is
+         * being created.
+         * 
+         * @param rank The index of the {@link HandlerSlot}.
+         */
+        private void add(final int rank) {
+            if (this.size == this.ranks.length) {
+                this.ranks = Arrays.copyOf(this.ranks, this.size * 2);
+            }
+            this.ranks[this.size++] = rank;
+        }
+    }
+}
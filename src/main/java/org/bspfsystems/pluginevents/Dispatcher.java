@@ -0,0 +1,43 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Calls all of the {@link HandlerSlot HandlerSlots} of a single
+ * {@link DispatchTable} for an {@link Event}, with exactly the same behavior
+ * as the generic loop in {@link EventBus#callEvent(Event)}.
+ * 
+ * @see DispatcherCompiler
+ */
+interface Dispatcher {
+    
+    /**
+     * Calls all of the {@link HandlerSlot HandlerSlots} for the specified
+     * {@link Event}.
+     * 
+     * @param event The {@link Event} to call.
+     * @return {@code true} if the {@link Event} was cancelled, {@code false}
+     *         otherwise.
+     */
+    boolean dispatch(@NotNull Event event);
+}
@@ -0,0 +1,258 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Generates a {@link Dispatcher} class for a single {@link DispatchTable},
+ * whose {@link Dispatcher#dispatch(Event)} method calls every
+ * {@link HandlerSlot} in order as straight-line code.
+ * <p>
+ * As each {@link HandlerSlot} gets its own call site in the generated class,
+ * the JIT compiler sees a single invoker at each one, and can inline the
+ * {@link EventHandler} methods directly into the dispatch. The cancellation
+ * checks are only generated where they are needed: not at all for
+ * {@link Event Events} that are not {@link Cancellable}, only after
+ * {@link HandlerSlot HandlerSlots} before {@link EventPriority#MONITOR}, and
+ * only before {@link HandlerSlot HandlerSlots} that ignore cancelled
+ * {@link Event Events}.
+ * <p>
+ * The class is defined as a hidden class, so that it is unloaded once the
+ * {@link DispatchTable} is no longer used. Hidden classes are only available
+ * on Java 15 and later, and are looked up reflectively so that the library
+ * still runs on Java 8. On older runtimes, no {@link Dispatcher} is generated
+ * and the generic loop is always used.
+ */
+final class DispatcherCompiler {
+    
+    /**
+     * The most {@link HandlerSlot HandlerSlots} to generate a
+     * {@link Dispatcher} for. This keeps the generated method well below the
+     * size that the JIT compiler will refuse to compile.
+     */
+    static final int MAX_HANDLERS = 128;
+    
+    private static final String CLASS_NAME = "org/bspfsystems/pluginevents/GeneratedDispatcher";
+    private static final String EVENT_BUS = "org/bspfsystems/pluginevents/EventBus";
+    private static final String HANDLER_SLOT = "org/bspfsystems/pluginevents/HandlerSlot";
+    private static final String BUS_DESCRIPTOR = "L" + DispatcherCompiler.EVENT_BUS + ";";
+    private static final String SLOTS_DESCRIPTOR = "[L" + DispatcherCompiler.HANDLER_SLOT + ";";
+    private static final String INVOKERS_DESCRIPTOR = "[Ljava/util/function/Consumer;";
+    
+    private static final int MONITOR = EventPriority.MONITOR.ordinal();
+    
+    private static final Logger LOGGER = Logger.getLogger(DispatcherCompiler.class.getName());
+    
+    private static final Method DEFINE_HIDDEN_CLASS;
+    private static final Object HIDDEN_CLASS_OPTIONS;
+    
+    private static volatile boolean failureLogged = false;
+    
+    static {
+        Method defineHiddenClass;
+        Object hiddenClassOptions;
+        try {
+            final Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            hiddenClassOptions = Array.newInstance(classOption, 0);
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, hiddenClassOptions.getClass());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Hidden classes are unavailable.
+            defineHiddenClass = null;
+            hiddenClassOptions = null;
+        }
+        DEFINE_HIDDEN_CLASS = defineHiddenClass;
+        HIDDEN_CLASS_OPTIONS = hiddenClassOptions;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private DispatcherCompiler() {
+        // Do nothing.
+    }
+    
+    /**
+     * Generates a {@link Dispatcher} for the specified
+     * {@link HandlerSlot HandlerSlots}.
+     * 
+     * @param eventBus The {@link EventBus} that the
+     *                 {@link HandlerSlot HandlerSlots} are registered with.
+     * @param eventType The type of {@link Event} that will be dispatched.
+     * @param handlers The priority-ordered {@link HandlerSlot HandlerSlots}.
+     * @return The generated {@link Dispatcher}, or {@code null} if one could
+     *         not be generated.
+     */
+    @Nullable
+    static Dispatcher compile(@NotNull final EventBus eventBus, @NotNull final Class<?> eventType, @NotNull final HandlerSlot[] handlers) {
+        
+        if (DispatcherCompiler.DEFINE_HIDDEN_CLASS == null || handlers.length == 0 || handlers.length > DispatcherCompiler.MAX_HANDLERS) {
+            return null;
+        }
+        
+        final Consumer<?>[] invokers = new Consumer<?>[handlers.length];
+        for (int index = 0; index < handlers.length; index++) {
+            invokers[index] = handlers[index].getInvoker();
+        }
+        
+        try {
+            final byte[] bytes = DispatcherCompiler.generate(Cancellable.class.isAssignableFrom(eventType), handlers);
+            final MethodHandles.Lookup lookup = (MethodHandles.Lookup) DispatcherCompiler.DEFINE_HIDDEN_CLASS.invoke(MethodHandles.lookup(), bytes, true, DispatcherCompiler.HIDDEN_CLASS_OPTIONS);
+            return (Dispatcher) lookup.lookupClass().getConstructor(EventBus.class, HandlerSlot[].class, Consumer[].class).newInstance(eventBus, handlers, invokers);
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            DispatcherCompiler.logFailure(eventType, e);
+            return null;
+        }
+    }
+    
+    /**
+     * Logs the first failure to generate a {@link Dispatcher}. The generic
+     * loop is used instead, so later failures are not logged.
+     * 
+     * @param eventType The type of {@link Event} that the {@link Dispatcher}
+     *                  was being generated for.
+     * @param cause The reason that the {@link Dispatcher} was not generated.
+     */
+    private static void logFailure(@NotNull final Class<?> eventType, @NotNull final Throwable cause) {
+        if (DispatcherCompiler.failureLogged) {
+            return;
+        }
+        DispatcherCompiler.failureLogged = true;
+        DispatcherCompiler.LOGGER.log(Level.CONFIG, "Unable to generate a Dispatcher for Event " + eventType.getName() + "; using the generic dispatch loop instead.", cause);
+    }
+    
+    /**
+     * Generates the bytes of the {@link Dispatcher} class. The class file
+     * version predates stack map frames, so none need to be computed.
+     * 
+     * @param cancellable {@code true} if the type of {@link Event} is
+     *                    {@link Cancellable}, {@code false} otherwise.
+     * @param handlers The priority-ordered {@link HandlerSlot HandlerSlots}.
+     * @return The bytes of the class.
+     */
+    @NotNull
+    private static byte[] generate(final boolean cancellable, @NotNull final HandlerSlot[] handlers) {
+        
+        final ClassFile file = new ClassFile();
+        final int thisClass = file.classRef(DispatcherCompiler.CLASS_NAME);
+        final int superClass = file.classRef("java/lang/Object");
+        final int dispatcher = file.classRef("org/bspfsystems/pluginevents/Dispatcher");
+        final int bus = file.fieldRef(DispatcherCompiler.CLASS_NAME, "bus", DispatcherCompiler.BUS_DESCRIPTOR);
+        final int slots = file.fieldRef(DispatcherCompiler.CLASS_NAME, "slots", DispatcherCompiler.SLOTS_DESCRIPTOR);
+        final int invokers = file.fieldRef(DispatcherCompiler.CLASS_NAME, "invokers", DispatcherCompiler.INVOKERS_DESCRIPTOR);
+        
+        // Constructor: stores the EventBus, HandlerSlots and invokers.
+        final ClassFile.Bytes init = new ClassFile.Bytes();
+        init.u1(0x2A).u1(0xB7).u2(file.methodRef("java/lang/Object", "<init>", "()V"));
+        init.u1(0x2A).u1(0x2B).u1(0xB5).u2(bus);
+        init.u1(0x2A).u1(0x2C).u1(0xB5).u2(slots);
+        init.u1(0x2A).u1(0x2D).u1(0xB5).u2(invokers);
+        init.u1(0xB1);
+        
+        // Dispatch: local 1 is the Event, local 2 is whether it is cancelled,
+        // and local 3 holds anything thrown by an EventHandler.
+        final int accept = file.interfaceMethodRef("java/util/function/Consumer", "accept", "(Ljava/lang/Object;)V");
+        final int failed = file.methodRef(DispatcherCompiler.EVENT_BUS, "failed", "(L" + DispatcherCompiler.HANDLER_SLOT + ";Lorg/bspfsystems/pluginevents/Event;Ljava/lang/Throwable;)V");
+        final int callBlocking = file.methodRef(DispatcherCompiler.EVENT_BUS, "callBlocking", "(L" + DispatcherCompiler.HANDLER_SLOT + ";Lorg/bspfsystems/pluginevents/Event;)V");
+        final int cancellableClass = file.classRef("org/bspfsystems/pluginevents/Cancellable");
+        final int isCancelled = file.interfaceMethodRef("org/bspfsystems/pluginevents/Cancellable", "isCancelled", "()Z");
+        final int throwable = file.classRef("java/lang/Throwable");
+        
+        final ClassFile.Bytes dispatch = new ClassFile.Bytes();
+        final ClassFile.Bytes exceptions = new ClassFile.Bytes();
+        int exceptionCount = 0;
+        dispatch.u1(0x03).u1(0x3D);
+        
+        for (int index = 0; index < handlers.length; index++) {
+            final HandlerSlot slot = handlers[index];
+            
+            int skip = -1;
+            if (cancellable && slot.isIgnoreCancelled()) {
+                dispatch.u1(0x1C);
+                skip = dispatch.branch(0x9A);
+            }
+            
+            if (slot.isBlocking()) {
+                dispatch.u1(0x2A).u1(0xB4).u2(bus);
+                dispatch.u1(0x2A).u1(0xB4).u2(slots).index(index).u1(0x32);
+                dispatch.u1(0x2B).u1(0xB6).u2(callBlocking);
+            } else {
+                final int start = dispatch.size();
+                dispatch.u1(0x2A).u1(0xB4).u2(invokers).index(index).u1(0x32);
+                dispatch.u1(0x2B).u1(0xB9).u2(accept).u1(2).u1(0);
+                final int end = dispatch.size();
+                final int done = dispatch.branch(0xA7);
+                
+                exceptions.u2(start).u2(end).u2(dispatch.size()).u2(throwable);
+                exceptionCount++;
+                dispatch.u1(0x4E);
+                dispatch.u1(0x2A).u1(0xB4).u2(slots).index(index).u1(0x32);
+                dispatch.u1(0x2B).u1(0x2D).u1(0xB8).u2(failed);
+                dispatch.target(done);
+                
+                if (cancellable && slot.getPriority() < DispatcherCompiler.MONITOR) {
+                    dispatch.u1(0x2B).u1(0xC0).u2(cancellableClass);
+                    dispatch.u1(0xB9).u2(isCancelled).u1(1).u1(0);
+                    dispatch.u1(0x3D);
+                }
+            }
+            
+            if (skip != -1) {
+                dispatch.target(skip);
+            }
+        }
+        dispatch.u1(0x1C).u1(0xAC);
+        
+        final String initDescriptor = "(" + DispatcherCompiler.BUS_DESCRIPTOR + DispatcherCompiler.SLOTS_DESCRIPTOR + DispatcherCompiler.INVOKERS_DESCRIPTOR + ")V";
+        final int[] busField = {file.utf8("bus"), file.utf8(DispatcherCompiler.BUS_DESCRIPTOR)};
+        final int[] slotsField = {file.utf8("slots"), file.utf8(DispatcherCompiler.SLOTS_DESCRIPTOR)};
+        final int[] invokersField = {file.utf8("invokers"), file.utf8(DispatcherCompiler.INVOKERS_DESCRIPTOR)};
+        final int[] initMethod = {file.utf8("<init>"), file.utf8(initDescriptor)};
+        final int[] dispatchMethod = {file.utf8("dispatch"), file.utf8("(Lorg/bspfsystems/pluginevents/Event;)Z")};
+        final int codeName = file.utf8("Code");
+        
+        // The constant pool is complete, so the class can now be written.
+        final ClassFile.Bytes out = new ClassFile.Bytes();
+        out.u4(0xCAFEBABE).u2(0).u2(49);
+        out.u2(file.count()).bytes(file.constants());
+        out.u2(0x0030).u2(thisClass).u2(superClass);
+        out.u2(1).u2(dispatcher);
+        
+        out.u2(3);
+        ClassFile.field(out, 0x0012, busField);
+        ClassFile.field(out, 0x0012, slotsField);
+        ClassFile.field(out, 0x0012, invokersField);
+        
+        out.u2(2);
+        ClassFile.method(out, 0x0001, initMethod, codeName, 2, 4, init, new ClassFile.Bytes(), 0);
+        ClassFile.method(out, 0x0001, dispatchMethod, codeName, 4, 4, dispatch, exceptions, exceptionCount);
+        
+        out.u2(0);
+        return out.toByteArray();
+    }
+}
@@ -20,16 +20,32 @@
 
 package org.bspfsystems.pluginevents;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This represents the main class where all {@link EventListener EventListeners}
@@ -41,49 +57,330 @@ import org.jetbrains.annotations.NotNull;
  * priority in Bukkit). This is especially important if the {@link Event} is
  * {@link Cancellable}, as this will allow the ability to properly cancel
  * the event in the API.
+ * <p>
+ * A single, global {@link EventBus} is available via {@link #getInstance()}.
+ * Separate {@link EventBus EventBuses} may also be constructed, so that a
+ * busy subsystem only pays for its own {@link EventHandler EventHandlers}.
+ * A child {@link EventBus}, created via {@link #createChild()}, also calls
+ * every {@link EventHandler} registered with its parent, while keeping its
+ * own registrations and dispatch tables separate from it.
  */
 public final class EventBus {
     
     private static final EventBus INSTANCE = new EventBus();
-    private static final Logger DEFAULT_LOGGER = Logger.getLogger(EventBus.class.getSimpleName());
     
-    private final ConcurrentHashMap<Event, TreeMap<Integer, HashSet<Method>>> registeredEvents;
-    private final ConcurrentHashMap<Method, Boolean> ignoreCancelled;
-    private final ConcurrentHashMap<Method, Logger> loggers;
+    private static final int MONITOR = EventPriority.MONITOR.ordinal();
+    private static final int DEFAULT_DISPATCHER_THRESHOLD = 10000;
+    private static final HandlerSlot[] NO_HANDLERS = new HandlerSlot[0];
+    
+    /**
+     * The number of filters of a {@link DispatchTable} whose results are
+     * remembered for the rest of a call (see
+     * {@link #testFilters(DispatchTable, int[], HandlerSlot, Event, long)}).
+     */
+    private static final int CACHED_FILTERS = 31;
+    
+    /**
+     * The bit of the packed filter results that is set if the last filters
+     * tested all passed.
+     */
+    private static final long FILTERS_PASSED = Long.MIN_VALUE;
+    private static final Comparator<Method> METHOD_ORDER = Comparator.comparing(Method::getName).thenComparing(method -> Arrays.toString(method.getParameterTypes()));
+    
+    private final EventBus parent;
+    private final AtomicReference<EventRegistry> registry;
+    private final ReferenceQueue<EventListener> collectedListeners;
+    private volatile EventRegistry view;
+    private volatile Executor asyncExecutor;
+    private volatile Executor blockingExecutor;
+    private volatile int dispatcherThreshold;
+    
+    /**
+     * Constructs a new, empty {@link EventBus}, independent of the global
+     * instance returned by {@link #getInstance()}.
+     */
+    public EventBus() {
+        this.parent = null;
+        this.registry = new AtomicReference<EventRegistry>(EventRegistry.EMPTY);
+        this.collectedListeners = new ReferenceQueue<EventListener>();
+        this.view = EventRegistry.EMPTY;
+        this.asyncExecutor = ForkJoinPool.commonPool();
+        this.blockingExecutor = null;
+        this.dispatcherThreshold = EventBus.DEFAULT_DISPATCHER_THRESHOLD;
+    }
     
     /**
-     * Private constructor to prevent instantiation.
+     * Constructs a new, empty child {@link EventBus} of the specified
+     * {@link EventBus}. Its settings are copied from the parent.
+     * 
+     * @param parent The parent {@link EventBus}.
      */
-    private EventBus() {
-        this.registeredEvents = new ConcurrentHashMap<Event, TreeMap<Integer, HashSet<Method>>>();
-        this.ignoreCancelled = new ConcurrentHashMap<Method, Boolean>();
-        this.loggers = new ConcurrentHashMap<Method, Logger>();
+    private EventBus(@NotNull final EventBus parent) {
+        this.parent = parent;
+        this.registry = new AtomicReference<EventRegistry>(EventRegistry.EMPTY);
+        this.collectedListeners = new ReferenceQueue<EventListener>();
+        this.view = EventRegistry.EMPTY.withParent(parent.getView(), null);
+        this.asyncExecutor = parent.asyncExecutor;
+        this.blockingExecutor = parent.blockingExecutor;
+        this.dispatcherThreshold = parent.dispatcherThreshold;
     }
     
     /**
-     * Gets the instance of this {@link EventBus}.
+     * Gets the global instance of the {@link EventBus}.
      * 
-     * @return The instance of this {@link EventBus}.
+     * @return The global instance of the {@link EventBus}.
      */
     @NotNull
     public static EventBus getInstance() {
         return EventBus.INSTANCE;
     }
     
+    /**
+     * Creates a new child of this {@link EventBus}.
+     * <p>
+     * Calling an {@link Event} on the child calls every {@link EventHandler}
+     * registered with this {@link EventBus} (and its own parents), as well as
+     * those registered with the child itself. {@link EventHandler EventHandlers}
+     * registered with the child are never called by this {@link EventBus}.
+     * Within the same {@link EventPriority} and
+     * {@link EventHandler#order() order}, the {@link EventHandler
+     * EventHandlers} of this {@link EventBus} are called first.
+     * <p>
+     * The child keeps its own dispatch tables. When either its own
+     * registrations or those of this {@link EventBus} change, only the tables
+     * of the affected types of {@link Event} are rebuilt.
+     * Unregistering via the child only affects its own registrations. The
+     * executors and dispatcher threshold of the child start out as those of
+     * this {@link EventBus}, and may then be changed independently.
+     * 
+     * @return The new child {@link EventBus}.
+     */
+    @NotNull
+    public EventBus createChild() {
+        return new EventBus(this);
+    }
+    
+    /**
+     * Gets the parent of this {@link EventBus}.
+     * 
+     * @return The parent {@link EventBus}, or {@code null} if this
+     *         {@link EventBus} is not a child.
+     * @see #createChild()
+     */
+    @Nullable
+    public EventBus getParent() {
+        return this.parent;
+    }
+    
     /**
      * Registers an {@link EventListener} and all of its {@link EventHandler}
      * methods.
+     * <p>
+     * {@link EventHandler} methods may be static or instance methods. Instance
+     * methods will always be called on the specified {@link EventListener}.
+     * <p>
+     * The parameter of an {@link EventHandler} method may be any {@link Event}
+     * class, or any interface implemented by {@link Event Events}. The method
+     * will handle every {@link Event} that is an instance of its parameter
+     * type, including subclasses.
+     * <p>
+     * The parameter may instead be a {@link List} of such a type (for
+     * example, {@code List<ChunkLoadEvent>}), making it a batch
+     * {@link EventHandler}. It is called once with every matching
+     * {@link Event} of a batch passed to {@link #callEvents(List)}, and with a
+     * {@link List} of one for each {@link Event} passed to
+     * {@link #callEvent(Event)}.
+     * 
+     * @param listener The {@link EventListener} to register.
+     * @param logger The {@link Logger} to use with the listener for logging
+     *               messages (errors, warnings, debugging, etc).
+     * @return The {@link Registration} that can be used to unregister the
+     *         {@link EventHandler EventHandlers} that were registered.
+     */
+    @NotNull
+    public Registration registerListener(@NotNull final EventListener listener, @NotNull final Logger logger) {
+        return this.registerListener(listener, logger, false, null);
+    }
+    
+    /**
+     * Registers an {@link EventListener} and all of its {@link EventHandler}
+     * methods, only weakly referencing the {@link EventListener}.
+     * <p>
+     * The {@link EventBus} will not keep the {@link EventListener}, or any of
+     * its classes, from being garbage collected. This allows the
+     * {@link ClassLoader} of a plugin to be garbage collected once the plugin
+     * has been unloaded, even if it did not unregister its
+     * {@link EventListener EventListeners}. Once the {@link EventListener} has
+     * been garbage collected, its {@link EventHandler EventHandlers} are no
+     * longer called, and they are removed the next time the registrations
+     * change.
+     * <p>
+     * The caller must keep a strong reference to the {@link EventListener}
+     * for as long as it should receive {@link Event Events}. Calling a weakly
+     * registered {@link EventHandler} is slightly slower than calling one
+     * registered via {@link #registerListener(EventListener, Logger)}.
+     * 
+     * @param listener The {@link EventListener} to register.
+     * @param logger The {@link Logger} to use with the listener for logging
+     *               messages (errors, warnings, debugging, etc).
+     * @return The {@link Registration} that can be used to unregister the
+     *         {@link EventHandler EventHandlers} that were registered.
+     * @see #registerListener(EventListener, Logger)
+     */
+    @NotNull
+    public Registration registerWeakListener(@NotNull final EventListener listener, @NotNull final Logger logger) {
+        return this.registerListener(listener, logger, true, null);
+    }
+    
+    /**
+     * Registers an {@link EventListener} and all of its {@link EventHandler}
+     * methods for a single key.
+     * <p>
+     * The {@link EventHandler EventHandlers} are only called for
+     * {@link Keyed} {@link Event Events} whose {@link Keyed#getEventKey()} is
+     * equal to the specified key. Any other {@link Event Events} are never
+     * passed to them. Calling a {@link Keyed} {@link Event} finds the
+     * {@link EventHandler EventHandlers} for its key with a single hash
+     * lookup, so registering an {@link EventListener} per entity (player,
+     * world, channel, etc.) costs nothing for {@link Event Events} about
+     * other entities.
+     * <p>
+     * {@link EventHandler EventHandlers} registered for a key run in the same
+     * order as all others, by {@link EventPriority} and
+     * {@link EventHandler#order()}. {@link Event Events} with a key that has
+     * {@link EventHandler EventHandlers} registered for it are always called
+     * through the generic dispatch loop, rather than a generated
+     * {@link Dispatcher} per key.
      * 
+     * @param key The key to register the {@link EventListener} for.
      * @param listener The {@link EventListener} to register.
      * @param logger The {@link Logger} to use with the listener for logging
      *               messages (errors, warnings, debugging, etc).
+     * @return The {@link Registration} that can be used to unregister the
+     *         {@link EventHandler EventHandlers} that were registered.
+     * @see #registerListener(EventListener, Logger)
+     */
+    @NotNull
+    public Registration registerKeyedListener(@NotNull final Object key, @NotNull final EventListener listener, @NotNull final Logger logger) {
+        return this.registerListener(listener, logger, false, key);
+    }
+    
+    /**
+     * Registers all of the specified {@link EventListener EventListeners} and
+     * all of their {@link EventHandler} methods, as if by calling
+     * {@link #registerListener(EventListener, Logger)} for each of them.
+     * <p>
+     * All of the {@link EventListener EventListeners} are scanned first, and
+     * their {@link EventHandler EventHandlers} are then published together,
+     * rebuilding the registrations for each type of {@link Event} only once.
+     * This is much cheaper than registering many
+     * {@link EventListener EventListeners} one at a time, such as when a
+     * plugin is enabled. No {@link Event} called concurrently will see only
+     * some of them registered.
+     * 
+     * @param listeners The {@link EventListener EventListeners} to register.
+     * @param logger The {@link Logger} to use with the listeners for logging
+     *               messages (errors, warnings, debugging, etc).
+     * @return The {@link Registration} for each {@link EventListener}, in the
+     *         same order as the {@link EventListener EventListeners}.
+     */
+    @NotNull
+    public List<Registration> registerListeners(@NotNull final Collection<? extends EventListener> listeners, @NotNull final Logger logger) {
+        
+        this.pruneCollected();
+        
+        final ArrayList<Registration> registrations = new ArrayList<Registration>(listeners.size());
+        final ArrayList<HandlerSlot> slots = new ArrayList<HandlerSlot>();
+        for (final EventListener listener : listeners) {
+            final ListenerRegistration registration = this.createRegistration(listener, logger, false, null);
+            slots.addAll(Arrays.asList(registration.getSlots()));
+            registrations.add(registration);
+        }
+        
+        final HandlerSlot[] registered = slots.toArray(EventBus.NO_HANDLERS);
+        this.update(registry -> registry.register(registered));
+        return registrations;
+    }
+    
+    /**
+     * Registers an {@link EventListener} and all of its {@link EventHandler}
+     * methods, either strongly or weakly.
+     * 
+     * @param listener The {@link EventListener} to register.
+     * @param logger The {@link Logger} to use with the listener.
+     * @param weak {@code true} if the {@link EventListener} should only be
+     *             weakly referenced, {@code false} otherwise.
+     * @param key The key to register the {@link EventListener} for, or
+     *            {@code null} to register it for all {@link Event Events}.
+     * @return The {@link Registration} for the {@link EventListener}.
+     */
+    @NotNull
+    private Registration registerListener(@NotNull final EventListener listener, @NotNull final Logger logger, final boolean weak, @Nullable final Object key) {
+        
+        this.pruneCollected();
+        
+        final ListenerRegistration registration = this.createRegistration(listener, logger, weak, key);
+        this.update(registry -> registry.register(registration.getSlots()));
+        return registration;
+    }
+    
+    /**
+     * Creates the {@link ListenerRegistration} for an {@link EventListener},
+     * along with the {@link HandlerSlot HandlerSlots} for all of its
+     * {@link EventHandler} methods. Nothing is registered yet.
+     * 
+     * @param listener The {@link EventListener} to register.
+     * @param logger The {@link Logger} to use with the listener.
+     * @param weak {@code true} if the {@link EventListener} should only be
+     *             weakly referenced, {@code false} otherwise.
+     * @param key The key to register the {@link EventListener} for, or
+     *            {@code null} to register it for all {@link Event Events}.
+     * @return The {@link ListenerRegistration} for the {@link EventListener}.
      */
-    public void registerListener(@NotNull final EventListener listener, @NotNull final Logger logger) {
+    @NotNull
+    private ListenerRegistration createRegistration(@NotNull final EventListener listener, @NotNull final Logger logger, final boolean weak, @Nullable final Object key) {
+        
+        final ListenerRegistration registration = new ListenerRegistration(this, listener, weak ? this.collectedListeners : null, key);
+        final ArrayList<HandlerSlot> slots = new ArrayList<HandlerSlot>();
+        final GeneratedHandler[] generated = GeneratedRegistrars.getHandlers(listener.getClass());
+        if (generated != null) {
+            for (final GeneratedHandler handler : generated) {
+                slots.add(handler.createSlot(registration, listener, logger));
+            }
+        } else {
+            this.createSlotsReflectively(registration, listener, logger, slots);
+        }
+        
+        registration.setSlots(slots.toArray(EventBus.NO_HANDLERS));
+        return registration;
+    }
+    
+    /**
+     * Scans the class of the specified {@link EventListener} for
+     * {@link EventHandler} methods, and creates the {@link HandlerSlot} for
+     * each of them. This is used when no {@link ListenerRegistrar} was
+     * generated for the class.
+     * 
+     * @param registration The {@link ListenerRegistration} to create the
+     *                     {@link HandlerSlot HandlerSlots} for.
+     * @param listener The {@link EventListener} to register.
+     * @param logger The {@link Logger} to use with the listener.
+     * @param slots The {@link ArrayList} to add the created
+     *              {@link HandlerSlot HandlerSlots} to.
+     */
+    private void createSlotsReflectively(@NotNull final ListenerRegistration registration, @NotNull final EventListener listener, @NotNull final Logger logger, @NotNull final ArrayList<HandlerSlot> slots) {
         
         final HashSet<Method> methods = new HashSet<Method>(Arrays.asList(listener.getClass().getMethods()));
         methods.addAll(Arrays.asList(listener.getClass().getDeclaredMethods()));
+        final ArrayList<Method> sorted = new ArrayList<Method>(methods);
+        sorted.sort(EventBus.METHOD_ORDER);
         
-        for (final Method method : methods) {
+        for (final Method method : sorted) {
+            
+            // Bridge methods copy the annotation, but accept a supertype.
+            if (method.isBridge() || method.isSynthetic()) {
+                continue;
+            }
             final EventHandler eventHandler = method.getAnnotation(EventHandler.class);
             if (eventHandler == null) {
                 continue;
@@ -99,8 +396,16 @@ public final class EventBus {
                 continue;
             }
             
-            final Class<?> parameter = parameters[0];
-            if (!(parameter.isInstance(Event.class))) {
+            final Class<?> parameter = parameters[0] == List.class ? EventBus.getBatchType(method) : parameters[0];
+            if (parameter == null) {
+                logger.log(Level.WARNING, "Method marked as a batch EventHandler does not have a List of Events parameter.");
+                logger.log(Level.WARNING, "Cannot use as an EventHandler.");
+                logger.log(Level.WARNING, "EventListener Class: " + listener.getClass().getName());
+                logger.log(Level.WARNING, "Method Name: " + method.getName());
+                logger.log(Level.WARNING, "Parameter Type: " + method.getGenericParameterTypes()[0].getTypeName());
+                continue;
+            }
+            if (!Event.class.isAssignableFrom(parameter) && !parameter.isInterface()) {
                 logger.log(Level.WARNING, "Method marked as EventHandler does not have an Event parameter.");
                 logger.log(Level.WARNING, "Cannot use as an EventHandler.");
                 logger.log(Level.WARNING, "EventListener Class: " + listener.getClass().getName());
@@ -109,15 +414,67 @@ public final class EventBus {
                 continue;
             }
             
-            final Event event = Event.class.cast(parameter);
-            final TreeMap<Integer, HashSet<Method>> byPriority = this.registeredEvents.computeIfAbsent(event, newByPriority -> new TreeMap<Integer, HashSet<Method>>());
-            final HashSet<Method> eventHandlers = byPriority.computeIfAbsent(eventHandler.priority().ordinal(), newEventHandlers -> new HashSet<Method>());
-            eventHandlers.add(method);
-            this.ignoreCancelled.put(method, eventHandler.ignoreCancelled());
-            this.loggers.put(method, logger);
+            final Predicate<Event>[] filters;
+            try {
+                filters = EventFilters.get(eventHandler.filters());
+            } catch (IllegalArgumentException e) {
+                logger.log(Level.WARNING, "Filter of method marked as an EventHandler cannot be created.", e);
+                logger.log(Level.WARNING, "Cannot use as an EventHandler.");
+                logger.log(Level.WARNING, "EventListener Class: " + listener.getClass().getName());
+                logger.log(Level.WARNING, "Method Name: " + method.getName());
+                continue;
+            }
+            
+            final WeakReference<EventListener> weakListener = registration.getWeakListener();
+            final Consumer<Event> invoker = weakListener != null ? InvokerFactory.createWeak(weakListener, method, parameters[0], logger) : InvokerFactory.create(listener, method, parameters[0], logger);
+            slots.add(new HandlerSlot(registration, parameter, method, invoker, filters, eventHandler, logger));
         }
     }
     
+    /**
+     * Unregisters all {@link EventHandler EventHandlers} that were registered
+     * for the specified {@link EventListener}, across all
+     * {@link Registration Registrations} of it.
+     * 
+     * @param listener The {@link EventListener} to unregister.
+     */
+    public void unregisterAll(@NotNull final EventListener listener) {
+        this.pruneCollected();
+        this.unregisterAll(slot -> slot.getListener() == listener);
+    }
+    
+    /**
+     * Unregisters all {@link EventHandler EventHandlers} that were registered
+     * with the specified {@link Logger}. This is useful for unregistering all
+     * {@link EventListener EventListeners} belonging to a single plugin.
+     * 
+     * @param logger The {@link Logger} that the
+     *               {@link EventListener EventListeners} were registered with.
+     */
+    public void unregisterAll(@NotNull final Logger logger) {
+        this.pruneCollected();
+        this.unregisterAll(slot -> slot.getLogger() == logger);
+    }
+    
+    /**
+     * Checks if any {@link EventHandler EventHandlers} would be called for
+     * {@link Event Events} of the specified type, including those registered
+     * for any of its superclasses and interfaces.
+     * <p>
+     * This may be used to avoid constructing an {@link Event} at all if
+     * nothing is listening for it. The result is cached in the same way as
+     * the {@link EventHandler EventHandlers} themselves, so this is as cheap
+     * as the check at the start of {@link #callEvent(Event)}.
+     * 
+     * @param eventType The type of {@link Event} to check.
+     * @return {@code true} if any {@link EventHandler EventHandlers} are
+     *         registered for the type of {@link Event}, {@code false}
+     *         otherwise.
+     */
+    public boolean hasListeners(@NotNull final Class<? extends Event> eventType) {
+        return !this.getDispatchTable(eventType).isEmpty();
+    }
+    
     /**
      * Calls the specified {@link Event}, invoking all
      * {@link EventHandler EventHandlers} registered to listen for the
@@ -127,58 +484,642 @@ public final class EventBus {
      * priority event handler in the Bukkit/BungeeCord API so that if the
      * specified {@link Event} is {@link Cancellable}, the event in the
      * respective API may be cancelled as well, if that is the intended action.
+     * <p>
+     * Calling an {@link Event} that has no {@link EventHandler EventHandlers}
+     * registered for it does nothing, and returns {@code false}. Once the
+     * {@link Event} has been cancelled, any {@link EventHandler EventHandlers}
+     * that ignore cancelled {@link Event Events} are skipped.
+     * <p>
+     * If the {@link Event} is {@link Keyed}, the
+     * {@link EventHandler EventHandlers} registered for its key (see
+     * {@link #registerKeyedListener(Object, EventListener, Logger)}) are
+     * called along with all those registered without a key.
+     * <p>
+     * An {@link EventHandler} with {@link EventHandler#filters() filters} is
+     * only called if the {@link Event} passes all of them.
      * 
      * @param event The {@link Event} that is called.
      * @return {@code true} if the {@link Event} has been cancelled by the end
      *         of the handling, {@code false} otherwise.
+     * @see #hasListeners(Class)
      */
     public boolean callEvent(@NotNull final Event event) {
         
-        final TreeMap<Integer, HashSet<Method>> byPriority = this.registeredEvents.get(event);
-        if (byPriority == null) {
-            EventBus.DEFAULT_LOGGER.log(Level.WARNING, "Event called but not registered.");
-            EventBus.DEFAULT_LOGGER.log(Level.WARNING, "Event: " + event.getClass().getSimpleName());
+        DispatchTable table = this.getDispatchTable(event.getClass());
+        if (event instanceof Keyed) {
+            table = table.forKey(((Keyed) event).getEventKey());
+        }
+        final Dispatcher dispatcher = table.getDispatcher();
+        if (dispatcher != null) {
+            return dispatcher.dispatch(event);
+        }
+        
+        final HandlerSlot[] handlers = table.getHandlers();
+        if (handlers.length == 0) {
             return false;
         }
+        if (table.countCall(this.dispatcherThreshold)) {
+            final Dispatcher compiled = DispatcherCompiler.compile(this, event.getClass(), handlers);
+            if (compiled != null) {
+                table.setDispatcher(compiled);
+                return compiled.dispatch(event);
+            }
+        }
         
         boolean eventCancelled = false;
-        for (final Map.Entry<Integer, HashSet<Method>> entry : byPriority.entrySet()) {
-            for (final Method method : entry.getValue()) {
-                
-                Logger logger = this.loggers.get(method);
-                if (logger == null) {
-                    logger = EventBus.DEFAULT_LOGGER;
-                    logger.log(Level.WARNING, "No Logger defined for EventHandler method.");
-                    logger.log(Level.WARNING, "Default logger being used.");
-                    logger.log(Level.WARNING, "Event: " + event.getClass().getSimpleName());
-                    logger.log(Level.WARNING, "EventHandler Class: " + method.getClass().getName());
-                    logger.log(Level.WARNING, "Method Name: " + method.getName());
+        long filterResults = 0L;
+        for (int index = 0; index < handlers.length; index++) {
+            
+            // Skip straight past every handler that ignores cancelled events.
+            if (eventCancelled) {
+                index = table.nextWhenCancelled(index);
+                if (index == handlers.length) {
+                    break;
                 }
-                
-                if (eventCancelled && this.ignoreCancelled.get(method) != null && this.ignoreCancelled.get(method)) {
-                    logger.log(Level.CONFIG, "Skipping as event is cancelled.");
-                    logger.log(Level.CONFIG, "Event: " + event.getClass().getSimpleName());
-                    logger.log(Level.CONFIG, "EventHandler Class: " + method.getClass().getName());
-                    logger.log(Level.CONFIG, "Method Name: " + method.getName());
+            }
+            
+            final HandlerSlot slot = handlers[index];
+            
+            // Test each filter once per call.
+            final int[] filters = table.getFilterIndexes(index);
+            if (filters != null) {
+                filterResults = EventBus.testFilters(table, filters, slot, event, filterResults);
+                if ((filterResults & EventBus.FILTERS_PASSED) == 0L) {
                     continue;
                 }
-                
-                try {
-                    method.invoke(null, event);
-                } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | NullPointerException | ExceptionInInitializerError e) {
-                    logger.log(Level.WARNING, "Unable to invoke EventHandler method.");
-                    logger.log(Level.WARNING, e.getClass().getSimpleName() + " thrown.", e);
-                    logger.log(Level.WARNING, "Event: " + event.getClass().getSimpleName());
-                    logger.log(Level.WARNING, "EventHandler Class: " + method.getClass().getName());
-                    logger.log(Level.WARNING, "Method Name: " + method.getName());
+            }
+            
+            if (slot.isBlocking()) {
+                this.callBlocking(slot, event);
+                continue;
+            }
+            
+            EventBus.invoke(slot, event);
+            
+            if (slot.getPriority() < EventBus.MONITOR) {
+                eventCancelled = event instanceof Cancellable && ((Cancellable) event).isCancelled();
+            }
+        }
+        
+        return eventCancelled;
+    }
+    
+    /**
+     * Calls all of the specified {@link Event Events}, invoking all
+     * {@link EventHandler EventHandlers} registered to listen for each of
+     * them.
+     * <p>
+     * This is intended for bulk operations that would otherwise call
+     * thousands of {@link Event Events} one after the other. The
+     * {@link EventHandler EventHandlers} are looked up once for each run of
+     * consecutive {@link Event Events} of the same type (and, for
+     * {@link Keyed} {@link Event Events}, the same key), all from the same
+     * snapshot of the registrations. Within a run, each
+     * {@link EventHandler} handles every {@link Event} of the run before the
+     * next {@link EventHandler} is called, rather than each {@link Event}
+     * being passed through every {@link EventHandler} in turn. Cancellation
+     * and {@link EventHandler#filters() filters} are still applied to each
+     * {@link Event} separately.
+     * <p>
+     * Batch {@link EventHandler EventHandlers} (those that take a
+     * {@link List}) are called once per run, with every {@link Event} of the
+     * run that they would handle, in order. If none would be handled, they
+     * are not called.
+     * <p>
+     * Whether each {@link Cancellable} {@link Event} has been cancelled can be
+     * checked on the {@link Event} itself once this returns. Generated
+     * dispatchers (see {@link #setDispatcherThreshold(int)}) are not used.
+     * 
+     * @param events The {@link Event Events} that are called, in order.
+     * @see #callEvent(Event)
+     */
+    public void callEvents(@NotNull final List<? extends Event> events) {
+        
+        // Copied once, as get(int) may be linear for the given List.
+        final Event[] all = events.toArray(new Event[0]);
+        final EventRegistry view = this.getView();
+        Class<?> eventType = null;
+        DispatchTable typeTable = DispatchTable.EMPTY;
+        DispatchTable runTable = null;
+        int runStart = 0;
+        
+        for (int index = 0; index < all.length; index++) {
+            final Event event = all[index];
+            if (event.getClass() != eventType) {
+                eventType = event.getClass();
+                typeTable = view.getDispatchTable(eventType);
+            }
+            final DispatchTable table = event instanceof Keyed ? typeTable.forKey(((Keyed) event).getEventKey()) : typeTable;
+            if (table != runTable) {
+                if (runTable != null) {
+                    this.callRun(runTable, all, runStart, index);
+                }
+                runTable = table;
+                runStart = index;
+            }
+        }
+        
+        if (runTable != null) {
+            this.callRun(runTable, all, runStart, all.length);
+        }
+    }
+    
+    /**
+     * Calls a run of {@link Event Events} that all share the same
+     * {@link DispatchTable}, one {@link HandlerSlot} at a time.
+     * 
+     * @param table The {@link DispatchTable} of the {@link Event Events}.
+     * @param all All of the {@link Event Events} of the batch.
+     * @param start The index of the first {@link Event} of the run.
+     * @param end The index after the last {@link Event} of the run.
+     * @see #callEvents(List)
+     */
+    private void callRun(@NotNull final DispatchTable table, @NotNull final Event[] all, final int start, final int end) {
+        
+        final HandlerSlot[] handlers = table.getHandlers();
+        if (handlers.length == 0) {
+            return;
+        }
+        
+        final Event[] events = start == 0 && end == all.length ? all : Arrays.copyOfRange(all, start, end);
+        final boolean[] cancelled = new boolean[events.length];
+        final long[] filterResults = new long[events.length];
+        
+        for (int index = 0; index < handlers.length; index++) {
+            final HandlerSlot slot = handlers[index];
+            final int[] filters = table.getFilterIndexes(index);
+            
+            final ArrayList<Event> batch = slot.isBatch() ? new ArrayList<Event>(events.length) : null;
+            for (int eventIndex = 0; eventIndex < events.length; eventIndex++) {
+                final Event event = events[eventIndex];
+                if (cancelled[eventIndex] && slot.isIgnoreCancelled()) {
+                    continue;
+                }
+                if (filters != null) {
+                    filterResults[eventIndex] = EventBus.testFilters(table, filters, slot, event, filterResults[eventIndex]);
+                    if ((filterResults[eventIndex] & EventBus.FILTERS_PASSED) == 0L) {
+                        continue;
+                    }
                 }
                 
-                if (entry.getKey() < EventPriority.MONITOR.ordinal()) {
-                    eventCancelled = event instanceof Cancellable && ((Cancellable) event).isCancelled();
+                if (batch != null) {
+                    batch.add(event);
+                } else if (slot.isBlocking()) {
+                    this.callBlocking(slot, event);
+                } else {
+                    EventBus.invoke(slot, event);
+                }
+            }
+            
+            if (batch != null && !batch.isEmpty()) {
+                final List<Event> batchEvents = Collections.unmodifiableList(batch);
+                if (slot.isBlocking()) {
+                    this.callBlocking(slot, batchEvents);
+                } else {
+                    EventBus.invoke(slot, batchEvents);
                 }
             }
+            
+            if (slot.getPriority() < EventBus.MONITOR && !slot.isBlocking()) {
+                for (int eventIndex = 0; eventIndex < events.length; eventIndex++) {
+                    cancelled[eventIndex] = events[eventIndex] instanceof Cancellable && ((Cancellable) events[eventIndex]).isCancelled();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Hands the specified blocking {@link HandlerSlot} off to the blocking
+     * {@link Executor}, without waiting for it to be called.
+     * 
+     * @param slot The blocking {@link HandlerSlot}.
+     * @param event The {@link Event} that is called.
+     */
+    void callBlocking(@NotNull final HandlerSlot slot, @NotNull final Event event) {
+        
+        final Executor executor = this.getBlockingExecutor();
+        try {
+            executor.execute(() -> EventBus.invoke(slot, event));
+        } catch (RejectedExecutionException e) {
+            EventBus.log(Level.WARNING, "Unable to schedule blocking EventHandler method.", slot, event, e);
         }
+    }
+    
+    /**
+     * Hands the specified blocking batch {@link HandlerSlot} off to the
+     * blocking {@link Executor}, without waiting for it to be called.
+     * 
+     * @param slot The blocking batch {@link HandlerSlot}.
+     * @param events The {@link Event Events} that are called.
+     */
+    private void callBlocking(@NotNull final HandlerSlot slot, @NotNull final List<Event> events) {
         
-        return eventCancelled;
+        final Executor executor = this.getBlockingExecutor();
+        try {
+            executor.execute(() -> EventBus.invoke(slot, events));
+        } catch (RejectedExecutionException e) {
+            EventBus.log(Level.WARNING, "Unable to schedule blocking EventHandler method.", slot, events.get(0), e);
+        }
+    }
+    
+    /**
+     * Invokes the specified {@link HandlerSlot} with the specified
+     * {@link Event}, logging anything that is thrown.
+     * 
+     * @param slot The {@link HandlerSlot} to invoke.
+     * @param event The {@link Event} that is called.
+     */
+    private static void invoke(@NotNull final HandlerSlot slot, @NotNull final Event event) {
+        try {
+            slot.getInvoker().accept(event);
+        } catch (Throwable e) {
+            EventBus.failed(slot, event, e);
+        }
+    }
+    
+    /**
+     * Invokes the specified batch {@link HandlerSlot} with the specified
+     * {@link Event Events}, logging anything that is thrown.
+     * 
+     * @param slot The batch {@link HandlerSlot} to invoke.
+     * @param events The {@link Event Events} that are called.
+     */
+    private static void invoke(@NotNull final HandlerSlot slot, @NotNull final List<Event> events) {
+        try {
+            slot.getBatchInvoker().accept(events);
+        } catch (Throwable e) {
+            EventBus.failed(slot, events.get(0), e);
+        }
+    }
+    
+    /**
+     * Tests the specified filters of a {@link HandlerSlot} against the
+     * specified {@link Event}, reusing the result of any filter that has
+     * already been tested for the {@link Event}.
+     * <p>
+     * The results are packed into a single {@code long}, so that they can be
+     * kept in a local variable without allocating: the low
+     * {@link #CACHED_FILTERS} bits mark the filters that have been tested,
+     * the same bits shifted left by 32 mark those that passed, and
+     * {@link #FILTERS_PASSED} is set if the {@link Event} passes all of the
+     * specified filters. Any filters past the first {@link #CACHED_FILTERS}
+     * of the {@link DispatchTable} are tested every time.
+     * 
+     * @param table The {@link DispatchTable} that holds the filters.
+     * @param filters The indexes of the filters to test.
+     * @param slot The {@link HandlerSlot} the filters belong to.
+     * @param event The {@link Event} that is called.
+     * @param results The results of the filters tested so far for the
+     *                {@link Event}, or {@code 0} if none have been.
+     * @return The updated results.
+     */
+    private static long testFilters(@NotNull final DispatchTable table, @NotNull final int[] filters, @NotNull final HandlerSlot slot, @NotNull final Event event, final long results) {
+        
+        long updated = results;
+        for (final int filterIndex : filters) {
+            final boolean passed;
+            if (filterIndex >= EventBus.CACHED_FILTERS) {
+                passed = EventBus.test(table.getFilter(filterIndex), slot, event);
+            } else if ((updated & (1L << filterIndex)) == 0L) {
+                passed = EventBus.test(table.getFilter(filterIndex), slot, event);
+                updated |= (1L << filterIndex) | (passed ? 1L << (filterIndex + 32) : 0L);
+            } else {
+                passed = (updated & (1L << (filterIndex + 32))) != 0L;
+            }
+            if (!passed) {
+                return updated & ~EventBus.FILTERS_PASSED;
+            }
+        }
+        return updated | EventBus.FILTERS_PASSED;
+    }
+    
+    /**
+     * Gets the type of {@link Event} handled by a batch {@link EventHandler}
+     * method, from the type argument of its {@link List} parameter.
+     * 
+     * @param method The batch {@link EventHandler} method.
+     * @return The type of {@link Event}, or {@code null} if the type argument
+     *         is not a class or interface (or an upper-bounded wildcard of
+     *         one).
+     */
+    @Nullable
+    private static Class<?> getBatchType(@NotNull final Method method) {
+        
+        final Type parameter = method.getGenericParameterTypes()[0];
+        if (!(parameter instanceof ParameterizedType)) {
+            return null;
+        }
+        
+        Type argument = ((ParameterizedType) parameter).getActualTypeArguments()[0];
+        if (argument instanceof WildcardType && ((WildcardType) argument).getLowerBounds().length == 0) {
+            argument = ((WildcardType) argument).getUpperBounds()[0];
+        }
+        return argument instanceof Class ? (Class<?>) argument : null;
+    }
+    
+    /**
+     * Tests the specified filter of the specified {@link HandlerSlot} against
+     * the specified {@link Event}. If the filter throws, the
+     * {@link HandlerSlot} is not called.
+     * 
+     * @param filter The filter to test.
+     * @param slot The {@link HandlerSlot} the filter belongs to.
+     * @param event The {@link Event} that is called.
+     * @return {@code true} if the filter accepts the {@link Event},
+     *         {@code false} otherwise.
+     */
+    private static boolean test(@NotNull final Predicate<Event> filter, @NotNull final HandlerSlot slot, @NotNull final Event event) {
+        try {
+            return filter.test(event);
+        } catch (Throwable e) {
+            EventBus.log(Level.WARNING, "Unable to test EventHandler filter.", slot, event, e);
+            return false;
+        }
+    }
+    
+    /**
+     * Logs that the specified {@link HandlerSlot} threw while handling the
+     * specified {@link Event}.
+     * 
+     * @param slot The {@link HandlerSlot} that was invoked.
+     * @param event The {@link Event} that is called.
+     * @param thrown The {@link Throwable} that was thrown.
+     */
+    static void failed(@NotNull final HandlerSlot slot, @NotNull final Event event, @NotNull final Throwable thrown) {
+        EventBus.log(Level.WARNING, "Unable to invoke EventHandler method.", slot, event, thrown);
+    }
+    
+    /**
+     * Logs a message about the specified {@link HandlerSlot} to its
+     * {@link Logger}, along with the details of the {@link HandlerSlot} and
+     * {@link Event}.
+     * <p>
+     * Nothing is built or logged unless the {@link Logger} is actually
+     * logging at the specified {@link Level}, so this costs nothing on the
+     * dispatch path when that level is disabled.
+     * 
+     * @param level The {@link Level} to log at.
+     * @param message The message to log.
+     * @param slot The {@link HandlerSlot} the message is about.
+     * @param event The {@link Event} that is called.
+     * @param thrown The {@link Throwable} that was thrown, if any.
+     */
+    private static void log(@NotNull final Level level, @NotNull final String message, @NotNull final HandlerSlot slot, @NotNull final Event event, @Nullable final Throwable thrown) {
+        
+        final Logger logger = slot.getLogger();
+        if (!logger.isLoggable(level)) {
+            return;
+        }
+        
+        logger.log(level, message);
+        if (thrown != null) {
+            logger.log(level, thrown.getClass().getSimpleName() + " thrown.", thrown);
+        }
+        logger.log(level, "Event: " + event.getClass().getSimpleName());
+        logger.log(level, "EventHandler Class: " + slot.getClassName());
+        logger.log(level, "Method Name: " + slot.getMethodName());
+    }
+    
+    /**
+     * Calls the specified {@link Event} asynchronously on the
+     * {@link Executor} set via {@link #setAsyncExecutor(Executor)}.
+     * <p>
+     * All {@link EventHandler EventHandlers} are called one after the other
+     * on a single thread of the {@link Executor}, in the same order and with
+     * the same handling of {@link Cancellable} {@link Event Events} as
+     * {@link #callEvent(Event)}. The calling thread does not wait for any of
+     * them.
+     * 
+     * @param event The {@link Event} that is called.
+     * @return A {@link CompletableFuture} that completes with {@code true} if
+     *         the {@link Event} has been cancelled by the end of the handling,
+     *         {@code false} otherwise.
+     * @see #callEvent(Event)
+     */
+    @NotNull
+    public CompletableFuture<Boolean> callEventAsync(@NotNull final Event event) {
+        return this.callEventAsync(event, this.asyncExecutor);
+    }
+    
+    /**
+     * Calls the specified {@link Event} asynchronously on the specified
+     * {@link Executor}.
+     * 
+     * @param event The {@link Event} that is called.
+     * @param executor The {@link Executor} to call the {@link Event} on.
+     * @return A {@link CompletableFuture} that completes with {@code true} if
+     *         the {@link Event} has been cancelled by the end of the handling,
+     *         {@code false} otherwise.
+     * @see #callEventAsync(Event)
+     */
+    @NotNull
+    public CompletableFuture<Boolean> callEventAsync(@NotNull final Event event, @NotNull final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> this.callEvent(event), executor);
+    }
+    
+    /**
+     * Gets the {@link Executor} used by {@link #callEventAsync(Event)}.
+     * 
+     * @return The {@link Executor} used to call {@link Event Events}
+     *         asynchronously.
+     */
+    @NotNull
+    public Executor getAsyncExecutor() {
+        return this.asyncExecutor;
+    }
+    
+    /**
+     * Sets the {@link Executor} used by {@link #callEventAsync(Event)}. By
+     * default, this is the {@link ForkJoinPool#commonPool()}.
+     * 
+     * @param executor The {@link Executor} to use to call
+     *                 {@link Event Events} asynchronously.
+     */
+    public void setAsyncExecutor(@NotNull final Executor executor) {
+        this.asyncExecutor = executor;
+    }
+    
+    /**
+     * Gets the {@link Executor} that {@link EventHandler#blocking() blocking}
+     * {@link EventHandler EventHandlers} are called on.
+     * 
+     * @return The {@link Executor} for blocking
+     *         {@link EventHandler EventHandlers}.
+     */
+    @NotNull
+    public Executor getBlockingExecutor() {
+        final Executor executor = this.blockingExecutor;
+        return executor != null ? executor : BlockingExecutors.getDefault();
+    }
+    
+    /**
+     * Sets the {@link Executor} that {@link EventHandler#blocking() blocking}
+     * {@link EventHandler EventHandlers} are called on. By default, each
+     * blocking {@link EventHandler} is called on a new virtual thread if the
+     * runtime supports them, or on a bounded pool of daemon threads if not.
+     * 
+     * @param executor The {@link Executor} for blocking
+     *                 {@link EventHandler EventHandlers}.
+     */
+    public void setBlockingExecutor(@NotNull final Executor executor) {
+        this.blockingExecutor = executor;
+    }
+    
+    /**
+     * Gets the number of times that an {@link Event} type must be called
+     * before a dedicated dispatcher is generated for it.
+     * 
+     * @return The number of calls, or a negative number if dispatchers are
+     *         never generated.
+     * @see #setDispatcherThreshold(int)
+     */
+    public int getDispatcherThreshold() {
+        return this.dispatcherThreshold;
+    }
+    
+    /**
+     * Sets the number of times that an {@link Event} type must be called
+     * before a dedicated dispatcher is generated for it. By default, this is
+     * {@code 10000}.
+     * <p>
+     * The generated dispatcher calls each {@link EventHandler} for that type
+     * of {@link Event} as straight-line code, with the cancellation checks
+     * inlined between them, which allows the JIT compiler to inline the
+     * {@link EventHandler EventHandlers} themselves. Rarely-called
+     * {@link Event Events} continue to use the generic dispatch loop. The
+     * dispatcher is only discarded when the registrations for that type of
+     * {@link Event}, or for one of its supertypes, change. It is then
+     * generated again once the {@link Event} type has been called enough
+     * times.
+     * <p>
+     * Dispatchers are only generated on Java 15 or later, and only for up to
+     * 128 {@link EventHandler EventHandlers} per type of {@link Event}, none
+     * of which have {@link EventHandler#filters() filters}. The
+     * new threshold applies to {@link Event} types that have not yet reached
+     * the previous one.
+     * 
+     * @param threshold The number of calls, or a negative number to never
+     *                  generate dispatchers.
+     */
+    public void setDispatcherThreshold(final int threshold) {
+        this.dispatcherThreshold = threshold;
+    }
+    
+    /**
+     * Unregisters the specified {@link HandlerSlot HandlerSlots}, rebuilding
+     * only the {@link HandlerList HandlerLists} they were registered in.
+     * 
+     * @param slots The {@link HandlerSlot HandlerSlots} to unregister.
+     */
+    void unregister(@NotNull final HandlerSlot[] slots) {
+        this.pruneCollected();
+        this.update(registry -> registry.unregister(slots));
+    }
+    
+    /**
+     * Removes the {@link HandlerSlot HandlerSlots} of any weakly-registered
+     * {@link EventListener EventListeners} that have been garbage collected.
+     * <p>
+     * This does nothing unless an {@link EventListener} has actually been
+     * garbage collected since the last time this was called, and then only
+     * rebuilds the {@link HandlerList HandlerLists} that their
+     * {@link HandlerSlot HandlerSlots} were registered in.
+     */
+    private void pruneCollected() {
+        
+        Reference<? extends EventListener> collected = this.collectedListeners.poll();
+        if (collected == null) {
+            return;
+        }
+        
+        final ArrayList<HandlerSlot> slots = new ArrayList<HandlerSlot>();
+        for (; collected != null; collected = this.collectedListeners.poll()) {
+            final ListenerRegistration registration = ((ListenerRegistration.WeakListener) collected).getRegistration();
+            if (registration.markUnregistered()) {
+                slots.addAll(Arrays.asList(registration.getSlots()));
+            }
+        }
+        
+        final HandlerSlot[] removed = slots.toArray(EventBus.NO_HANDLERS);
+        this.update(registry -> registry.unregister(removed));
+    }
+    
+    /**
+     * Unregisters all {@link HandlerSlot HandlerSlots} that match the
+     * specified {@link Predicate}, rebuilding only the
+     * {@link HandlerList HandlerLists} that contained any of them.
+     * 
+     * @param filter The {@link Predicate} that matches the
+     *               {@link HandlerSlot HandlerSlots} to unregister.
+     */
+    private void unregisterAll(@NotNull final Predicate<HandlerSlot> filter) {
+        this.update(registry -> registry.unregisterIf(filter));
+    }
+    
+    /**
+     * Atomically replaces the current {@link EventRegistry} with the result
+     * of applying the specified change to it.
+     * <p>
+     * The change is applied to the current {@link EventRegistry}, and the
+     * result is published with a compare-and-set. If another thread published
+     * a different {@link EventRegistry} in the meantime, the change is applied
+     * again to that one. As such, the change must not have any side effects.
+     * 
+     * @param change The change to apply, returning the same
+     *               {@link EventRegistry} if nothing changed.
+     */
+    private void update(@NotNull final UnaryOperator<EventRegistry> change) {
+        EventRegistry current;
+        EventRegistry updated;
+        do {
+            current = this.registry.get();
+            updated = change.apply(current);
+            if (updated == current) {
+                return;
+            }
+        } while (!this.registry.compareAndSet(current, updated));
+    }
+    
+    /**
+     * Gets the {@link DispatchTable} for the specified type of {@link Event},
+     * including the {@link HandlerSlot HandlerSlots} registered for any of its
+     * superclasses and interfaces, from the current view.
+     * 
+     * @param eventType The type of {@link Event}.
+     * @return The {@link DispatchTable} for the type of {@link Event}.
+     */
+    @NotNull
+    private DispatchTable getDispatchTable(@NotNull final Class<?> eventType) {
+        return this.getView().getDispatchTable(eventType);
+    }
+    
+    /**
+     * Gets the {@link EventRegistry} that {@link Event Events} are called
+     * from.
+     * <p>
+     * For a child {@link EventBus}, this is a view that combines its own
+     * registrations with the current view of its parent. The view is cached
+     * until either of them changes, along with its
+     * {@link DispatchTable DispatchTables}.
+     * 
+     * @return The current {@link EventRegistry} to call
+     *         {@link Event Events} from.
+     */
+    @NotNull
+    private EventRegistry getView() {
+        
+        final EventRegistry own = this.registry.get();
+        if (this.parent == null) {
+            return own;
+        }
+        
+        final EventRegistry parentView = this.parent.getView();
+        final EventRegistry view = this.view;
+        if (view.isViewOf(own, parentView)) {
+            return view;
+        }
+        final EventRegistry updated = own.withParent(parentView, view);
+        this.view = updated;
+        return updated;
     }
 }
@@ -0,0 +1,106 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.reflect.Constructor;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates the filters named by {@link EventHandler#filters()}.
+ * <p>
+ * Only a single instance of each filter class is ever created, and it is
+ * shared by every {@link EventHandler} that names it. This allows a
+ * {@link DispatchTable} to recognise identical filters, so each one is only
+ * tested once per {@link Event} no matter how many
+ * {@link EventHandler EventHandlers} use it.
+ */
+final class EventFilters {
+    
+    @SuppressWarnings("unchecked")
+    static final Predicate<Event>[] NONE = (Predicate<Event>[]) new Predicate<?>[0];
+    
+    private static final ClassValue<Predicate<Event>> INSTANCES = new ClassValue<Predicate<Event>>() {
+        @Override
+        @NotNull
+        protected Predicate<Event> computeValue(@NotNull final Class<?> type) {
+            return EventFilters.instantiate(type);
+        }
+    };
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private EventFilters() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets the shared instances of the specified filter classes.
+     * 
+     * @param types The filter classes, as named by
+     *              {@link EventHandler#filters()}.
+     * @return The shared instance of each filter class, in the same order.
+     * @throws IllegalArgumentException If any of the filter classes could not
+     *                                  be instantiated.
+     */
+    @NotNull
+    static Predicate<Event>[] get(@NotNull final Class<? extends Predicate<?>>[] types) throws IllegalArgumentException {
+        
+        if (types.length == 0) {
+            return EventFilters.NONE;
+        }
+        
+        @SuppressWarnings("unchecked")
+        final Predicate<Event>[] filters = (Predicate<Event>[]) new Predicate<?>[types.length];
+        for (int index = 0; index < types.length; index++) {
+            filters[index] = EventFilters.INSTANCES.get(types[index]);
+        }
+        return filters;
+    }
+    
+    /**
+     * Creates a new instance of the specified filter class, using its no-args
+     * constructor.
+     * 
+     * @param type The filter class.
+     * @return The new instance of the filter class.
+     * @throws IllegalArgumentException If the filter class could not be
+     *                                  instantiated.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static Predicate<Event> instantiate(@NotNull final Class<?> type) throws IllegalArgumentException {
+        
+        if (!Predicate.class.isAssignableFrom(type)) {
+            throw new IllegalArgumentException("Filter class " + type.getName() + " does not implement Predicate.");
+        }
+        
+        try {
+            final Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            return (Predicate<Event>) constructor.newInstance();
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new IllegalArgumentException("Unable to instantiate filter class " + type.getName() + ".", e);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.function.Predicate;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -52,4 +53,75 @@ public @interface EventHandler {
      * @see Cancellable#setCancelled(boolean)
      */
     boolean ignoreCancelled() default false;
+    
+    /**
+     * Gets the order of this {@link EventHandler} among the
+     * {@link EventHandler EventHandlers} with the same {@link EventPriority}.
+     * <p>
+     * {@link EventHandler EventHandlers} with a lower order are called first.
+     * Those with the same order are called in this order:
+     * <ol>
+     *     <li>Those registered with a parent {@link EventBus} (see
+     *     {@link EventBus#createChild()}), before those registered with the
+     *     child itself.</li>
+     *     <li>Within each {@link EventBus}, those that accept the type of the
+     *     {@link Event} that is called, then those that accept its
+     *     superclasses (nearest first), and then those that accept its
+     *     interfaces.</li>
+     *     <li>Within each of those, in the order that they were registered.
+     *     Methods within a single {@link EventListener} are registered in
+     *     order of their names and then their parameter types.</li>
+     * </ol>
+     * As such, a handler for a more general type of {@link Event} may be
+     * called after one registered later for a more specific type. Use
+     * different orders where the relative order of two
+     * {@link EventHandler EventHandlers} matters.
+     * 
+     * @return The order of this {@link EventHandler} within its
+     *         {@link EventPriority}.
+     */
+    int order() default 0;
+    
+    /**
+     * Determines if this {@link EventHandler} performs blocking operations,
+     * such as database or network I/O.
+     * <p>
+     * A blocking {@link EventHandler} is not called on the thread that called
+     * the {@link Event}. Instead, when its turn comes, it is handed off to the
+     * blocking {@link java.util.concurrent.Executor} of the {@link EventBus}
+     * (virtual threads where the runtime supports them), and the remaining
+     * {@link EventHandler EventHandlers} are called without waiting for it.
+     * As such, a blocking {@link EventHandler} cannot affect whether the
+     * {@link Event} is cancelled, and should treat the {@link Event} as
+     * read-only.
+     * 
+     * @return {@code true} if this {@link EventHandler} is blocking,
+     *         {@code false} otherwise.
+     * @see EventBus#setBlockingExecutor(java.util.concurrent.Executor)
+     */
+    boolean blocking() default false;
+    
+    /**
+     * Gets the filters that an {@link Event} must pass before this
+     * {@link EventHandler} is called.
+     * <p>
+     * Each filter is a {@link Predicate} class with a no-args constructor,
+     * whose type parameter is the type of {@link Event} handled by this
+     * {@link EventHandler} (or one of its supertypes). The {@link EventBus}
+     * tests the filters just before this {@link EventHandler} would be called,
+     * and only calls it if all of them accept the {@link Event}, so an
+     * {@link EventHandler} that would otherwise immediately return is never
+     * called at all.
+     * <p>
+     * A single instance of each filter class is shared by every
+     * {@link EventHandler} that names it, and each filter is tested at most
+     * once per call of an {@link Event}, with the result being reused for all
+     * later {@link EventHandler EventHandlers} that name the same filter. As
+     * such, filters must be stateless, and should only test properties of the
+     * {@link Event} that {@link EventHandler EventHandlers} do not change.
+     * 
+     * @return The filter classes, or an empty array if this
+     *         {@link EventHandler} handles every {@link Event}.
+     */
+    Class<? extends Predicate<?>>[] filters() default {};
 }
@@ -0,0 +1,419 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable snapshot of every {@link HandlerSlot} registered with an
+ * {@link EventBus}, grouped by the type of {@link Event} they were registered
+ * for, along with the {@link DispatchTable DispatchTables} resolved from it.
+ * <p>
+ * The {@link EventBus} holds the current {@link EventRegistry} in a single
+ * atomic reference. Registering or unregistering builds a new
+ * {@link EventRegistry} from the current one and swaps it in with a
+ * compare-and-set, retrying if another thread changed it first. Calling an
+ * {@link Event} only reads the current {@link EventRegistry}, so it never
+ * takes a lock, and always sees either all or none of the
+ * {@link HandlerSlot HandlerSlots} of a registration.
+ * <p>
+ * The {@link EventRegistry} of a child {@link EventBus} only holds its own
+ * registrations. When calling an {@link Event}, they are combined with the
+ * current {@link EventRegistry} of its parent into a view (see
+ * {@link #withParent(EventRegistry, EventRegistry)}), which has its own
+ * {@link DispatchTable DispatchTables}.
+ * <p>
+ * When a new {@link EventRegistry} replaces an older one, it carries over
+ * every {@link DispatchTable} that the older one resolved for a type of
+ * {@link Event} whose hierarchy does not include any type with changed
+ * {@link HandlerSlot HandlerSlots}. Those {@link DispatchTable DispatchTables}
+ * keep their call counts and generated {@link Dispatcher Dispatchers}, so an
+ * unrelated registration does not slow down any other type of
+ * {@link Event}.
+ */
+final class EventRegistry {
+    
+    private static final HandlerSlot[] NO_HANDLERS = new HandlerSlot[0];
+    private static final Comparator<HandlerSlot> HANDLER_ORDER = Comparator.comparingInt(HandlerSlot::getPriority).thenComparingInt(HandlerSlot::getOrder);
+    
+    static final EventRegistry EMPTY = new EventRegistry(new HashMap<Class<?>, HandlerList>(), null, null);
+    
+    private final HashMap<Class<?>, HandlerList> handlerLists;
+    private final EventRegistry parent;
+    private final Map<Class<?>, DispatchTable> resolvedTables;
+    private final ClassValue<DispatchTable> dispatchTables;
+    
+    /**
+     * Constructs a new {@link EventRegistry}.
+     * <p>
+     * The {@link DispatchTable DispatchTables} are kept in a
+     * {@link ClassValue}, so each {@link DispatchTable} is stored with the
+     * type of {@link Event} itself, and does not prevent the type (or its
+     * {@link ClassLoader}) from being garbage collected. They are also
+     * recorded in a {@link WeakHashMap}, so that they can be carried over to
+     * the next {@link EventRegistry}. They are released along with the
+     * {@link EventRegistry} once it has been replaced.
+     * 
+     * @param handlerLists The {@link HandlerList} for each type of
+     *                     {@link Event}. The {@link HashMap} must not be
+     *                     modified afterwards.
+     * @param parent The {@link EventRegistry} whose
+     *               {@link HandlerSlot HandlerSlots} are also called, or
+     *               {@code null} if there is none.
+     * @param previous The {@link EventRegistry} that this one replaces, whose
+     *                 unaffected {@link DispatchTable DispatchTables} are
+     *                 carried over, or {@code null} if there is none.
+     */
+    private EventRegistry(@NotNull final HashMap<Class<?>, HandlerList> handlerLists, @Nullable final EventRegistry parent, @Nullable final EventRegistry previous) {
+        this.handlerLists = handlerLists;
+        this.parent = parent;
+        this.resolvedTables = Collections.synchronizedMap(new WeakHashMap<Class<?>, DispatchTable>());
+        if (previous != null) {
+            this.carryDispatchTables(previous);
+        }
+        this.dispatchTables = new ClassValue<DispatchTable>() {
+            @Override
+            @NotNull
+            protected DispatchTable computeValue(@NotNull final Class<?> type) {
+                return EventRegistry.this.findDispatchTable(type);
+            }
+        };
+    }
+    
+    /**
+     * Gets the {@link DispatchTable} for the specified type of {@link Event},
+     * including the {@link HandlerSlot HandlerSlots} registered for any of its
+     * superclasses and interfaces.
+     * <p>
+     * The result is cached, so the type hierarchy is only walked the first
+     * time each type is called.
+     * 
+     * @param eventType The type of {@link Event}.
+     * @return The {@link DispatchTable} for the type of {@link Event}.
+     */
+    @NotNull
+    DispatchTable getDispatchTable(@NotNull final Class<?> eventType) {
+        return this.dispatchTables.get(eventType);
+    }
+    
+    /**
+     * Creates a view of this {@link EventRegistry} that also calls all of the
+     * {@link HandlerSlot HandlerSlots} of the specified parent
+     * {@link EventRegistry}.
+     * 
+     * @param parent The parent {@link EventRegistry}.
+     * @param previous The view that the new view replaces, or {@code null} if
+     *                 there is none.
+     * @return The new view.
+     */
+    @NotNull
+    EventRegistry withParent(@NotNull final EventRegistry parent, @Nullable final EventRegistry previous) {
+        return new EventRegistry(this.handlerLists, parent, previous);
+    }
+    
+    /**
+     * Checks if this {@link EventRegistry} is a view of the specified
+     * {@link EventRegistry} and parent {@link EventRegistry}, as created by
+     * {@link #withParent(EventRegistry, EventRegistry)}.
+     * 
+     * @param own The {@link EventRegistry} holding the own registrations.
+     * @param parent The parent {@link EventRegistry}.
+     * @return {@code true} if this is a view of both, {@code false}
+     *         otherwise.
+     */
+    boolean isViewOf(@NotNull final EventRegistry own, @NotNull final EventRegistry parent) {
+        return this.handlerLists == own.handlerLists && this.parent == parent;
+    }
+    
+    /**
+     * Creates a new {@link EventRegistry} with the specified
+     * {@link HandlerSlot HandlerSlots} registered as well.
+     * 
+     * @param slots The {@link HandlerSlot HandlerSlots} to register, in the
+     *              order that they were registered.
+     * @return The new {@link EventRegistry}, or this {@link EventRegistry}
+     *         if there were no {@link HandlerSlot HandlerSlots} to register.
+     */
+    @NotNull
+    EventRegistry register(@NotNull final HandlerSlot[] slots) {
+        
+        if (slots.length == 0) {
+            return this;
+        }
+        
+        final LinkedHashMap<Class<?>, ArrayList<HandlerSlot>> byType = new LinkedHashMap<Class<?>, ArrayList<HandlerSlot>>();
+        for (final HandlerSlot slot : slots) {
+            byType.computeIfAbsent(slot.getEventType(), newSlots -> new ArrayList<HandlerSlot>()).add(slot);
+        }
+        
+        final HashMap<Class<?>, HandlerList> handlerLists = new HashMap<Class<?>, HandlerList>(this.handlerLists);
+        for (final Map.Entry<Class<?>, ArrayList<HandlerSlot>> entry : byType.entrySet()) {
+            handlerLists.put(entry.getKey(), handlerLists.getOrDefault(entry.getKey(), HandlerList.EMPTY).register(entry.getValue()));
+        }
+        return new EventRegistry(handlerLists, this.parent, this);
+    }
+    
+    /**
+     * Creates a new {@link EventRegistry} without the specified
+     * {@link HandlerSlot HandlerSlots}. Only the
+     * {@link HandlerList HandlerLists} they were registered in are rebuilt.
+     * 
+     * @param slots The {@link HandlerSlot HandlerSlots} to unregister.
+     * @return The new {@link EventRegistry}, or this {@link EventRegistry} if
+     *         none of the {@link HandlerSlot HandlerSlots} were registered.
+     */
+    @NotNull
+    EventRegistry unregister(@NotNull final HandlerSlot[] slots) {
+        final LinkedHashSet<Class<?>> eventTypes = new LinkedHashSet<Class<?>>();
+        for (final HandlerSlot slot : slots) {
+            eventTypes.add(slot.getEventType());
+        }
+        final LinkedHashSet<HandlerSlot> removed = new LinkedHashSet<HandlerSlot>(Arrays.asList(slots));
+        return this.unregisterIf(eventTypes, removed::contains);
+    }
+    
+    /**
+     * Creates a new {@link EventRegistry} without any of the
+     * {@link HandlerSlot HandlerSlots} that match the specified
+     * {@link Predicate}.
+     * 
+     * @param filter The {@link Predicate} that matches the
+     *               {@link HandlerSlot HandlerSlots} to unregister.
+     * @return The new {@link EventRegistry}, or this {@link EventRegistry} if
+     *         no {@link HandlerSlot HandlerSlots} matched.
+     */
+    @NotNull
+    EventRegistry unregisterIf(@NotNull final Predicate<HandlerSlot> filter) {
+        return this.unregisterIf(this.handlerLists.keySet(), filter);
+    }
+    
+    /**
+     * Creates a new {@link EventRegistry} without any of the
+     * {@link HandlerSlot HandlerSlots} registered for the specified types of
+     * {@link Event} that match the specified {@link Predicate}. Any
+     * {@link HandlerList} that is left empty is removed entirely.
+     * 
+     * @param eventTypes The types of {@link Event} to unregister from.
+     * @param filter The {@link Predicate} that matches the
+     *               {@link HandlerSlot HandlerSlots} to unregister.
+     * @return The new {@link EventRegistry}, or this {@link EventRegistry} if
+     *         no {@link HandlerSlot HandlerSlots} matched.
+     */
+    @NotNull
+    private EventRegistry unregisterIf(@NotNull final Iterable<Class<?>> eventTypes, @NotNull final Predicate<HandlerSlot> filter) {
+        
+        HashMap<Class<?>, HandlerList> handlerLists = null;
+        for (final Class<?> eventType : eventTypes) {
+            final HandlerList handlerList = this.handlerLists.get(eventType);
+            if (handlerList == null) {
+                continue;
+            }
+            final HandlerList remaining = handlerList.unregisterIf(filter);
+            if (remaining == handlerList) {
+                continue;
+            }
+            if (handlerLists == null) {
+                handlerLists = new HashMap<Class<?>, HandlerList>(this.handlerLists);
+            }
+            if (remaining.isEmpty()) {
+                handlerLists.remove(eventType);
+            } else {
+                handlerLists.put(eventType, remaining);
+            }
+        }
+        return handlerLists == null ? this : new EventRegistry(handlerLists, this.parent, this);
+    }
+    
+    /**
+     * Copies every {@link DispatchTable} resolved by the specified
+     * {@link EventRegistry} that is still valid for this one: those for types
+     * of {@link Event} that are not a subtype of any type whose
+     * {@link HandlerList} differs between them.
+     * 
+     * @param previous The {@link EventRegistry} that this one replaces.
+     */
+    private void carryDispatchTables(@NotNull final EventRegistry previous) {
+        
+        final HashSet<Class<?>> changedTypes = new HashSet<Class<?>>();
+        if (!EventRegistry.collectChangedTypes(previous, this, changedTypes)) {
+            return;
+        }
+        
+        synchronized (previous.resolvedTables) {
+            for (final Map.Entry<Class<?>, DispatchTable> entry : previous.resolvedTables.entrySet()) {
+                final Class<?> eventType = entry.getKey();
+                if (eventType != null && changedTypes.stream().noneMatch(changedType -> changedType.isAssignableFrom(eventType))) {
+                    this.resolvedTables.put(eventType, entry.getValue());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Collects the types of {@link Event} whose {@link HandlerList} differs
+     * between the specified {@link EventRegistry EventRegistries}, including
+     * their parents. As each {@link HandlerList} is immutable, and shared by
+     * every {@link EventRegistry} until it changes, they are compared by
+     * identity.
+     * 
+     * @param previous The older {@link EventRegistry}.
+     * @param current The newer {@link EventRegistry}.
+     * @param changedTypes The {@link HashSet} to add the changed types to.
+     * @return {@code true} if the changes were collected, {@code false} if
+     *         the {@link EventRegistry EventRegistries} do not have the same
+     *         depth of parents, and so cannot be compared.
+     */
+    private static boolean collectChangedTypes(@NotNull final EventRegistry previous, @NotNull final EventRegistry current, @NotNull final HashSet<Class<?>> changedTypes) {
+        
+        if (previous.handlerLists != current.handlerLists) {
+            for (final Map.Entry<Class<?>, HandlerList> entry : previous.handlerLists.entrySet()) {
+                if (current.handlerLists.get(entry.getKey()) != entry.getValue()) {
+                    changedTypes.add(entry.getKey());
+                }
+            }
+            for (final Class<?> eventType : current.handlerLists.keySet()) {
+                if (!previous.handlerLists.containsKey(eventType)) {
+                    changedTypes.add(eventType);
+                }
+            }
+        }
+        
+        if (previous.parent == current.parent) {
+            return true;
+        }
+        if (previous.parent == null || current.parent == null) {
+            return false;
+        }
+        return EventRegistry.collectChangedTypes(previous.parent, current.parent, changedTypes);
+    }
+    
+    /**
+     * Finds the {@link DispatchTable} for the specified type of
+     * {@link Event}, either as carried over from the previous
+     * {@link EventRegistry} or by resolving it, and records it so that it can
+     * be carried over to the next {@link EventRegistry}.
+     * 
+     * @param eventType The type of {@link Event}.
+     * @return The {@link DispatchTable} for the type of {@link Event}.
+     */
+    @NotNull
+    private DispatchTable findDispatchTable(@NotNull final Class<?> eventType) {
+        
+        final DispatchTable carried = this.resolvedTables.get(eventType);
+        if (carried != null) {
+            return carried;
+        }
+        
+        final DispatchTable resolved = this.resolveDispatchTable(eventType);
+        final DispatchTable raced = this.resolvedTables.putIfAbsent(eventType, resolved);
+        return raced == null ? resolved : raced;
+    }
+    
+    /**
+     * Walks the type hierarchy of the specified type of {@link Event} and
+     * merges the {@link HandlerSlot HandlerSlots} registered for each type
+     * into a single priority-ordered {@link DispatchTable}.
+     * <p>
+     * Within a single {@link EventPriority}, {@link HandlerSlot HandlerSlots}
+     * are ordered by {@link EventHandler#order()}. Within the same order,
+     * those registered for the type itself run first, followed by those for
+     * its superclasses, and then those for its interfaces, each in the order
+     * that they were registered. Any {@link HandlerSlot HandlerSlots} of the
+     * parent {@link EventRegistry} run before those registered here.
+     * <p>
+     * {@link HandlerSlot HandlerSlots} registered with a key are only called
+     * through the {@link DispatchTable} for their key (see
+     * {@link DispatchTable#forKey(Object)}), which also holds the
+     * {@link HandlerSlot HandlerSlots} registered without a key, in the same
+     * order.
+     * 
+     * @param eventType The type of {@link Event}.
+     * @return The merged {@link DispatchTable}.
+     */
+    @NotNull
+    private DispatchTable resolveDispatchTable(@NotNull final Class<?> eventType) {
+        
+        final LinkedHashSet<Class<?>> types = new LinkedHashSet<Class<?>>();
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            types.add(type);
+        }
+        for (Class<?> type = eventType; type != null; type = type.getSuperclass()) {
+            EventRegistry.addInterfaces(type, types);
+        }
+        
+        final ArrayList<HandlerSlot> resolved = new ArrayList<HandlerSlot>();
+        this.collectHandlers(types, resolved);
+        if (resolved.isEmpty()) {
+            return DispatchTable.EMPTY;
+        }
+        resolved.sort(EventRegistry.HANDLER_ORDER);
+        
+        return DispatchTable.create(resolved.toArray(EventRegistry.NO_HANDLERS));
+    }
+    
+    /**
+     * Adds the {@link HandlerSlot HandlerSlots} registered for each of the
+     * specified types to the specified {@link ArrayList}, starting with those
+     * of the parent {@link EventRegistry}, if there is one.
+     * 
+     * @param types The types of {@link Event}, in the order to add them.
+     * @param resolved The {@link ArrayList} to add the
+     *                 {@link HandlerSlot HandlerSlots} to.
+     */
+    private void collectHandlers(@NotNull final LinkedHashSet<Class<?>> types, @NotNull final ArrayList<HandlerSlot> resolved) {
+        if (this.parent != null) {
+            this.parent.collectHandlers(types, resolved);
+        }
+        for (final Class<?> type : types) {
+            final HandlerList handlerList = this.handlerLists.get(type);
+            if (handlerList != null) {
+                resolved.addAll(Arrays.asList(handlerList.getHandlers()));
+            }
+        }
+    }
+    
+    /**
+     * Adds all interfaces implemented by the specified type, including
+     * superinterfaces, to the specified {@link LinkedHashSet}.
+     * 
+     * @param type The type to get the interfaces of.
+     * @param types The {@link LinkedHashSet} to add the interfaces to.
+     */
+    private static void addInterfaces(@NotNull final Class<?> type, @NotNull final LinkedHashSet<Class<?>> types) {
+        for (final Class<?> implemented : type.getInterfaces()) {
+            if (types.add(implemented)) {
+                EventRegistry.addInterfaces(implemented, types);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.ref.WeakReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Describes an {@link EventHandler} method of an {@link EventListener} class,
+ * as provided by a generated {@link ListenerRegistrar}. It is shared by every
+ * registration of an {@link EventListener} of that class.
+ */
+final class GeneratedHandler {
+    
+    private final Class<?> eventType;
+    private final String className;
+    private final String methodName;
+    private final EventPriority priority;
+    private final int order;
+    private final boolean ignoreCancelled;
+    private final boolean blocking;
+    private final boolean isStatic;
+    private final BiConsumer<Object, Event> invoker;
+    private final Function<Object, Consumer<Event>> binder;
+    
+    /**
+     * Constructs a new {@link GeneratedHandler}.
+     * 
+     * @param declaringClass The class that declares the method.
+     * @param eventType The type of {@link Event} that the method accepts.
+     * @param methodName The name of the method.
+     * @param priority The {@link EventPriority} of the method.
+     * @param order The order of the method within its {@link EventPriority}.
+     * @param ignoreCancelled {@code true} if the method ignores cancelled
+     *                        {@link Event Events}, {@code false} otherwise.
+     * @param blocking {@code true} if the method is blocking, {@code false}
+     *                 otherwise.
+     * @param isStatic {@code true} if the method is static, {@code false}
+     *                 otherwise.
+     * @param invoker The unbound invoker for the method.
+     * @param binder Creates the bound invoker for the method.
+     */
+    GeneratedHandler(@NotNull final Class<?> declaringClass, @NotNull final Class<?> eventType, @NotNull final String methodName, @NotNull final EventPriority priority, final int order, final boolean ignoreCancelled, final boolean blocking, final boolean isStatic, @NotNull final BiConsumer<Object, Event> invoker, @NotNull final Function<Object, Consumer<Event>> binder) {
+        this.eventType = eventType;
+        this.className = declaringClass.getName();
+        this.methodName = methodName;
+        this.priority = priority;
+        this.order = order;
+        this.ignoreCancelled = ignoreCancelled;
+        this.blocking = blocking;
+        this.isStatic = isStatic;
+        this.invoker = invoker;
+        this.binder = binder;
+    }
+    
+    /**
+     * Gets the type of {@link Event} that the method accepts.
+     * 
+     * @return The type of {@link Event}.
+     */
+    @NotNull
+    Class<?> getEventType() {
+        return this.eventType;
+    }
+    
+    /**
+     * Gets the name of the method.
+     * 
+     * @return The name of the method.
+     */
+    @NotNull
+    String getMethodName() {
+        return this.methodName;
+    }
+    
+    /**
+     * Creates the {@link HandlerSlot} for this method for the specified
+     * {@link ListenerRegistration}.
+     * 
+     * @param owner The {@link ListenerRegistration} to create the
+     *              {@link HandlerSlot} for.
+     * @param listener The {@link EventListener} that is registered.
+     * @param logger The {@link Logger} to use with the {@link EventListener}.
+     * @return The new {@link HandlerSlot}.
+     */
+    @NotNull
+    HandlerSlot createSlot(@NotNull final ListenerRegistration owner, @NotNull final EventListener listener, @NotNull final Logger logger) {
+        final WeakReference<EventListener> weakListener = owner.getWeakListener();
+        final Consumer<Event> invoker = weakListener != null ? InvokerFactory.createWeak(weakListener, this.invoker, this.isStatic) : this.binder.apply(listener);
+        return new HandlerSlot(owner, this.eventType, this.className, this.methodName, invoker, false, EventFilters.NONE, this.priority.ordinal(), this.order, this.ignoreCancelled, this.blocking, logger);
+    }
+}
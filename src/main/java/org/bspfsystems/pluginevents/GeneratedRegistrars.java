@@ -0,0 +1,98 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds and caches the generated {@link ListenerRegistrar} for each
+ * {@link EventListener} class. The {@link GeneratedHandler GeneratedHandlers}
+ * are stored with the {@link EventListener} class itself, so they do not
+ * prevent its {@link ClassLoader} from being garbage collected.
+ */
+final class GeneratedRegistrars {
+    
+    private static final GeneratedHandler[] NONE = new GeneratedHandler[0];
+    private static final Comparator<GeneratedHandler> METHOD_ORDER = Comparator.comparing(GeneratedHandler::getMethodName).thenComparing(handler -> Arrays.toString(new Class<?>[] {handler.getEventType()}));
+    
+    private static final ClassValue<GeneratedHandler[]> HANDLERS = new ClassValue<GeneratedHandler[]>() {
+        @Override
+        @NotNull
+        protected GeneratedHandler[] computeValue(@NotNull final Class<?> type) {
+            return GeneratedRegistrars.load(type);
+        }
+    };
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private GeneratedRegistrars() {
+        // Do nothing.
+    }
+    
+    /**
+     * Gets the {@link GeneratedHandler GeneratedHandlers} for the specified
+     * {@link EventListener} class.
+     * 
+     * @param listenerClass The {@link EventListener} class.
+     * @return The {@link GeneratedHandler GeneratedHandlers}, or {@code null}
+     *         if no {@link ListenerRegistrar} was generated for the class.
+     */
+    @Nullable
+    static GeneratedHandler[] getHandlers(@NotNull final Class<?> listenerClass) {
+        final GeneratedHandler[] handlers = GeneratedRegistrars.HANDLERS.get(listenerClass);
+        return handlers == GeneratedRegistrars.NONE ? null : handlers;
+    }
+    
+    /**
+     * Loads the generated {@link ListenerRegistrar} for the specified
+     * {@link EventListener} class, if there is one, and collects its
+     * {@link GeneratedHandler GeneratedHandlers}. They are sorted in the same
+     * order that the {@link EventBus} registers methods found reflectively.
+     * 
+     * @param listenerClass The {@link EventListener} class.
+     * @return The {@link GeneratedHandler GeneratedHandlers}, or
+     *         {@link #NONE} if no usable {@link ListenerRegistrar} exists.
+     */
+    @NotNull
+    private static GeneratedHandler[] load(@NotNull final Class<?> listenerClass) {
+        
+        final ListenerRegistrar registrar;
+        try {
+            final Class<?> registrarClass = Class.forName(listenerClass.getName() + ListenerRegistrar.SUFFIX, true, listenerClass.getClassLoader());
+            if (!ListenerRegistrar.class.isAssignableFrom(registrarClass)) {
+                return GeneratedRegistrars.NONE;
+            }
+            registrar = (ListenerRegistrar) registrarClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return GeneratedRegistrars.NONE;
+        }
+        
+        final ArrayList<GeneratedHandler> handlers = new ArrayList<GeneratedHandler>();
+        registrar.collectHandlers((declaringClass, eventType, methodName, priority, order, ignoreCancelled, blocking, isStatic, invoker, binder) -> handlers.add(new GeneratedHandler(declaringClass, eventType, methodName, priority, order, ignoreCancelled, blocking, isStatic, invoker, binder)));
+        handlers.sort(GeneratedRegistrars.METHOD_ORDER);
+        return handlers.toArray(new GeneratedHandler[handlers.size()]);
+    }
+}
@@ -0,0 +1,187 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Holds the {@link HandlerSlot HandlerSlots} registered for a single type of
+ * {@link Event}.
+ * <p>
+ * Registrations are kept in one array per {@link EventPriority}, indexed by
+ * its ordinal, sorted by {@link EventHandler#order()} and then by the order
+ * that they were registered. These are flattened into a single,
+ * priority-ordered array.
+ * <p>
+ * A {@link HandlerList} is immutable. Registering or unregistering
+ * {@link HandlerSlot HandlerSlots} returns a new {@link HandlerList}, so it
+ * may be shared freely between threads and between {@link EventRegistry}
+ * snapshots.
+ */
+final class HandlerList {
+    
+    private static final HandlerSlot[] NO_HANDLERS = new HandlerSlot[0];
+    
+    static final HandlerList EMPTY = new HandlerList(HandlerList.emptyBuckets());
+    
+    private final HandlerSlot[][] byPriority;
+    private final HandlerSlot[] handlers;
+    
+    /**
+     * Constructs a new {@link HandlerList}, flattening the specified
+     * {@link HandlerSlot HandlerSlots}.
+     * 
+     * @param byPriority The {@link HandlerSlot HandlerSlots} for each
+     *                   {@link EventPriority}, indexed by ordinal. Neither
+     *                   the array nor its elements may be modified
+     *                   afterwards.
+     */
+    private HandlerList(@NotNull final HandlerSlot[][] byPriority) {
+        this.byPriority = byPriority;
+        
+        int size = 0;
+        for (final HandlerSlot[] slots : byPriority) {
+            size += slots.length;
+        }
+        final HandlerSlot[] handlers = size == 0 ? HandlerList.NO_HANDLERS : new HandlerSlot[size];
+        int index = 0;
+        for (final HandlerSlot[] slots : byPriority) {
+            System.arraycopy(slots, 0, handlers, index, slots.length);
+            index += slots.length;
+        }
+        this.handlers = handlers;
+    }
+    
+    /**
+     * Gets the priority-ordered {@link HandlerSlot HandlerSlots}. The returned
+     * array must not be modified.
+     * 
+     * @return The priority-ordered {@link HandlerSlot HandlerSlots}.
+     */
+    @NotNull
+    HandlerSlot[] getHandlers() {
+        return this.handlers;
+    }
+    
+    /**
+     * Checks if there are no {@link HandlerSlot HandlerSlots} registered.
+     * 
+     * @return {@code true} if no {@link HandlerSlot HandlerSlots} are
+     *         registered, {@code false} otherwise.
+     */
+    boolean isEmpty() {
+        return this.handlers.length == 0;
+    }
+    
+    /**
+     * Creates a new {@link HandlerList} with the specified
+     * {@link HandlerSlot HandlerSlots} registered as well. Each is placed
+     * after any others with the same {@link EventPriority} and the same or a
+     * lower order. Any {@link HandlerSlot HandlerSlots} of weakly-registered
+     * {@link EventListener EventListeners} that have been garbage collected
+     * are removed.
+     * 
+     * @param added The {@link HandlerSlot HandlerSlots} to register, in the
+     *              order that they were registered.
+     * @return The new {@link HandlerList}.
+     */
+    @NotNull
+    HandlerList register(@NotNull final Iterable<HandlerSlot> added) {
+        final HandlerSlot[][] byPriority = HandlerList.removeIf(this.byPriority, HandlerSlot::isCollected);
+        for (final HandlerSlot slot : added) {
+            final HandlerSlot[] slots = byPriority[slot.getPriority()];
+            int index = slots.length;
+            while (index > 0 && slots[index - 1].getOrder() > slot.getOrder()) {
+                index--;
+            }
+            final HandlerSlot[] inserted = new HandlerSlot[slots.length + 1];
+            System.arraycopy(slots, 0, inserted, 0, index);
+            inserted[index] = slot;
+            System.arraycopy(slots, index, inserted, index + 1, slots.length - index);
+            byPriority[slot.getPriority()] = inserted;
+        }
+        return new HandlerList(byPriority);
+    }
+    
+    /**
+     * Creates a new {@link HandlerList} without any
+     * {@link HandlerSlot HandlerSlots} that match the specified
+     * {@link Predicate}, or of weakly-registered
+     * {@link EventListener EventListeners} that have been garbage collected.
+     * 
+     * @param filter The {@link Predicate} that matches the
+     *               {@link HandlerSlot HandlerSlots} to unregister.
+     * @return The new {@link HandlerList}, or this {@link HandlerList} if
+     *         nothing was unregistered.
+     */
+    @NotNull
+    HandlerList unregisterIf(@NotNull final Predicate<HandlerSlot> filter) {
+        final HandlerSlot[][] byPriority = HandlerList.removeIf(this.byPriority, filter.or(HandlerSlot::isCollected));
+        return Arrays.equals(byPriority, this.byPriority) ? this : new HandlerList(byPriority);
+    }
+    
+    /**
+     * Copies the specified {@link HandlerSlot HandlerSlots} for each
+     * {@link EventPriority}, without those that match the specified
+     * {@link Predicate}. Arrays that are unchanged are shared, rather than
+     * copied.
+     * 
+     * @param byPriority The {@link HandlerSlot HandlerSlots} for each
+     *                   {@link EventPriority}.
+     * @param filter The {@link Predicate} that matches the
+     *               {@link HandlerSlot HandlerSlots} to remove.
+     * @return The remaining {@link HandlerSlot HandlerSlots} for each
+     *         {@link EventPriority}, in a new array.
+     */
+    @NotNull
+    private static HandlerSlot[][] removeIf(@NotNull final HandlerSlot[][] byPriority, @NotNull final Predicate<HandlerSlot> filter) {
+        final HandlerSlot[][] remaining = byPriority.clone();
+        for (int priority = 0; priority < remaining.length; priority++) {
+            final HandlerSlot[] slots = remaining[priority];
+            final HandlerSlot[] kept = new HandlerSlot[slots.length];
+            int count = 0;
+            for (final HandlerSlot slot : slots) {
+                if (!filter.test(slot)) {
+                    kept[count++] = slot;
+                }
+            }
+            if (count != slots.length) {
+                remaining[priority] = count == 0 ? HandlerList.NO_HANDLERS : Arrays.copyOf(kept, count);
+            }
+        }
+        return remaining;
+    }
+    
+    /**
+     * Creates an empty array of {@link HandlerSlot HandlerSlots} for each
+     * {@link EventPriority}.
+     * 
+     * @return The empty arrays, indexed by ordinal.
+     */
+    @NotNull
+    private static HandlerSlot[][] emptyBuckets() {
+        final HandlerSlot[][] byPriority = new HandlerSlot[EventPriority.values().length][];
+        Arrays.fill(byPriority, HandlerList.NO_HANDLERS);
+        return byPriority;
+    }
+}
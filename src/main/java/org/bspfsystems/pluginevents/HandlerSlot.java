@@ -0,0 +1,320 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a single registered {@link EventHandler} method, holding
+ * everything that the {@link EventBus} needs to call it.
+ * <p>
+ * All attributes of the {@link EventHandler} are flattened into final fields
+ * when the {@link HandlerSlot} is created, and the {@link HandlerSlot} is
+ * stored directly in each {@link DispatchTable}, so calling it needs no
+ * lookups. The {@link EventListener} is reached through the owning
+ * {@link ListenerRegistration}, which is shared by all
+ * {@link HandlerSlot HandlerSlots} registered together, and only the names of
+ * the class and method are kept for logging, rather than the {@link Method}
+ * itself.
+ * <p>
+ * A batch {@link HandlerSlot} belongs to an {@link EventHandler} method that
+ * takes a {@link List} of {@link Event Events}. Its invoker is given the whole
+ * {@link List}, and it is wrapped so that a single {@link Event} is passed as
+ * a {@link List} of one.
+ */
+final class HandlerSlot {
+    
+    private final ListenerRegistration owner;
+    private final Class<?> eventType;
+    private final String className;
+    private final String methodName;
+    private final Consumer<Event> invoker;
+    private final Consumer<Event> singleInvoker;
+    private final boolean batch;
+    private final Predicate<Event>[] filters;
+    private final int priority;
+    private final int order;
+    private final boolean ignoreCancelled;
+    private final boolean blocking;
+    private final Logger logger;
+    
+    /**
+     * Constructs a new {@link HandlerSlot}.
+     * 
+     * @param owner The {@link ListenerRegistration} that this
+     *              {@link HandlerSlot} is registered with.
+     * @param eventType The type of {@link Event} the method was registered
+     *                  for. For a batch method, this is the type of the
+     *                  elements of its {@link List} parameter.
+     * @param method The {@link EventHandler} method.
+     * @param invoker The invoker used to call the {@link EventHandler} method.
+     * @param filters The shared instances of the filters of the method.
+     * @param eventHandler The {@link EventHandler} annotation on the method.
+     * @param logger The {@link Logger} to use for logging messages about the
+     *               {@link EventHandler} method.
+     */
+    HandlerSlot(@NotNull final ListenerRegistration owner, @NotNull final Class<?> eventType, @NotNull final Method method, @NotNull final Consumer<Event> invoker, @NotNull final Predicate<Event>[] filters, @NotNull final EventHandler eventHandler, @NotNull final Logger logger) {
+        this(owner, eventType, method.getDeclaringClass().getName(), method.getName(), invoker, method.getParameterTypes()[0] == List.class, filters, eventHandler.priority().ordinal(), eventHandler.order(), eventHandler.ignoreCancelled(), eventHandler.blocking(), logger);
+    }
+    
+    /**
+     * Constructs a new {@link HandlerSlot} from the already-resolved
+     * attributes of an {@link EventHandler} method.
+     * 
+     * @param owner The {@link ListenerRegistration} that this
+     *              {@link HandlerSlot} is registered with.
+     * @param eventType The type of {@link Event} the method was registered
+     *                  for.
+     * @param className The name of the class that declares the method.
+     * @param methodName The name of the method.
+     * @param invoker The invoker used to call the {@link EventHandler} method.
+     * @param batch {@code true} if the method takes a {@link List} of
+     *              {@link Event Events}, and the invoker must be given one,
+     *              {@code false} otherwise.
+     * @param filters The shared instances of the filters of the method.
+     * @param priority The ordinal of the {@link EventPriority} of the method.
+     * @param order The order of the method within its {@link EventPriority}.
+     * @param ignoreCancelled {@code true} if the method ignores cancelled
+     *                        {@link Event Events}, {@code false} otherwise.
+     * @param blocking {@code true} if the method is blocking, {@code false}
+     *                 otherwise.
+     * @param logger The {@link Logger} to use for logging messages about the
+     *               {@link EventHandler} method.
+     */
+    HandlerSlot(@NotNull final ListenerRegistration owner, @NotNull final Class<?> eventType, @NotNull final String className, @NotNull final String methodName, @NotNull final Consumer<Event> invoker, final boolean batch, @NotNull final Predicate<Event>[] filters, final int priority, final int order, final boolean ignoreCancelled, final boolean blocking, @NotNull final Logger logger) {
+        this.owner = owner;
+        this.eventType = eventType;
+        this.className = className;
+        this.methodName = methodName;
+        this.invoker = invoker;
+        this.singleInvoker = batch ? HandlerSlot.single(invoker) : invoker;
+        this.batch = batch;
+        this.filters = filters;
+        this.priority = priority;
+        this.order = order;
+        this.ignoreCancelled = ignoreCancelled;
+        this.blocking = blocking;
+        this.logger = logger;
+    }
+    
+    /**
+     * Gets the {@link ListenerRegistration} that this {@link HandlerSlot} is
+     * registered with.
+     * 
+     * @return The owning {@link ListenerRegistration}.
+     */
+    @NotNull
+    ListenerRegistration getOwner() {
+        return this.owner;
+    }
+    
+    /**
+     * Gets the {@link EventListener} that was registered.
+     * 
+     * @return The {@link EventListener} that was registered, or {@code null}
+     *         if it was registered weakly and has been garbage collected.
+     */
+    @Nullable
+    EventListener getListener() {
+        return this.owner.getListener();
+    }
+    
+    /**
+     * Gets the key that this {@link HandlerSlot} was registered for.
+     * 
+     * @return The key, or {@code null} if this {@link HandlerSlot} is called
+     *         for all {@link Event Events} of its type.
+     */
+    @Nullable
+    Object getKey() {
+        return this.owner.getKey();
+    }
+    
+    /**
+     * Gets the type of {@link Event} the {@link EventHandler} method was
+     * registered for.
+     * 
+     * @return The type of {@link Event}.
+     */
+    @NotNull
+    Class<?> getEventType() {
+        return this.eventType;
+    }
+    
+    /**
+     * Gets the name of the class that declares the {@link EventHandler}
+     * method.
+     * 
+     * @return The name of the class that declares the method.
+     */
+    @NotNull
+    String getClassName() {
+        return this.className;
+    }
+    
+    /**
+     * Gets the name of the {@link EventHandler} method.
+     * 
+     * @return The name of the method.
+     */
+    @NotNull
+    String getMethodName() {
+        return this.methodName;
+    }
+    
+    /**
+     * Gets the invoker used to call the {@link EventHandler} method with a
+     * single {@link Event}.
+     * 
+     * @return The invoker used to call the {@link EventHandler} method.
+     */
+    @NotNull
+    Consumer<Event> getInvoker() {
+        return this.singleInvoker;
+    }
+    
+    /**
+     * Checks if the {@link EventHandler} method takes a {@link List} of
+     * {@link Event Events}.
+     * 
+     * @return {@code true} if this is a batch {@link HandlerSlot},
+     *         {@code false} otherwise.
+     */
+    boolean isBatch() {
+        return this.batch;
+    }
+    
+    /**
+     * Gets the invoker used to call a batch {@link EventHandler} method with
+     * a {@link List} of {@link Event Events}.
+     * 
+     * @return The invoker used to call the {@link EventHandler} method.
+     * @throws IllegalStateException If this is not a batch
+     *                               {@link HandlerSlot}.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    Consumer<List<Event>> getBatchInvoker() throws IllegalStateException {
+        if (!this.batch) {
+            throw new IllegalStateException("EventHandler method " + this.methodName + " does not take a List of Events.");
+        }
+        return (Consumer<List<Event>>) (Consumer<?>) this.invoker;
+    }
+    
+    /**
+     * Checks if this {@link HandlerSlot} belongs to a weakly-registered
+     * {@link EventListener} that has been garbage collected, meaning it can
+     * no longer be called and should be removed.
+     * 
+     * @return {@code true} if this {@link HandlerSlot} has been collected,
+     *         {@code false} otherwise.
+     */
+    boolean isCollected() {
+        return InvokerFactory.isCollected(this.invoker);
+    }
+    
+    /**
+     * Gets the ordinal of the {@link EventPriority} of the
+     * {@link EventHandler} method.
+     * 
+     * @return The ordinal of the {@link EventPriority}.
+     */
+    int getPriority() {
+        return this.priority;
+    }
+    
+    /**
+     * Gets the order of the {@link EventHandler} method within its
+     * {@link EventPriority}.
+     * 
+     * @return The order within the {@link EventPriority}.
+     */
+    int getOrder() {
+        return this.order;
+    }
+    
+    /**
+     * Gets whether the {@link EventHandler} method ignores cancelled
+     * {@link Event Events}.
+     * 
+     * @return {@code true} if cancelled {@link Event Events} are ignored,
+     *         {@code false} otherwise.
+     */
+    boolean isIgnoreCancelled() {
+        return this.ignoreCancelled;
+    }
+    
+    /**
+     * Gets whether the {@link EventHandler} method is blocking, and must be
+     * called on the blocking {@link java.util.concurrent.Executor}.
+     * 
+     * @return {@code true} if the method is blocking, {@code false}
+     *         otherwise.
+     */
+    boolean isBlocking() {
+        return this.blocking;
+    }
+    
+    /**
+     * Gets the shared instances of the filters that an {@link Event} must
+     * pass before the {@link EventHandler} method is called. The returned
+     * array must not be modified.
+     * 
+     * @return The filters, which may be empty.
+     */
+    @NotNull
+    Predicate<Event>[] getFilters() {
+        return this.filters;
+    }
+    
+    /**
+     * Gets the {@link Logger} to use for logging messages about the
+     * {@link EventHandler} method.
+     * 
+     * @return The {@link Logger} for the {@link EventHandler} method.
+     */
+    @NotNull
+    Logger getLogger() {
+        return this.logger;
+    }
+    
+    /**
+     * Wraps the invoker of a batch {@link EventHandler} method, so that it
+     * can be called with a single {@link Event}.
+     * 
+     * @param invoker The invoker that takes a {@link List} of
+     *                {@link Event Events}.
+     * @return The invoker that takes a single {@link Event}.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    private static Consumer<Event> single(@NotNull final Consumer<Event> invoker) {
+        final Consumer<List<Event>> batchInvoker = (Consumer<List<Event>>) (Consumer<?>) invoker;
+        return event -> batchInvoker.accept(Collections.singletonList(event));
+    }
+}
@@ -0,0 +1,226 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Generates an invoker class for a single {@link EventHandler} method, which
+ * calls the {@link MethodHandle} of the method held in a static final field.
+ * <p>
+ * This is used where the {@link java.lang.invoke.LambdaMetafactory} cannot
+ * be, which is the case for every {@link EventListener} loaded by a different
+ * {@link ClassLoader} on Java 14 and later: the private lookup into such a
+ * class does not have full privilege access, which the
+ * {@link java.lang.invoke.LambdaMetafactory} requires. The generated class is
+ * instead defined in this package, with the {@link MethodHandle} passed in as
+ * its class data. As the {@link MethodHandle} is a true constant of its own
+ * class, the JIT compiler can inline through it to the
+ * {@link EventHandler} method, which it cannot do for a {@link MethodHandle}
+ * held in an instance field.
+ * <p>
+ * The class is defined as a hidden class, so that it is unloaded once the
+ * invoker is no longer used. Hidden classes with class data are only
+ * available on Java 16 and later, and are looked up reflectively so that the
+ * library still runs on Java 8.
+ */
+final class InvokerCompiler {
+    
+    private static final String CLASS_NAME = "org/bspfsystems/pluginevents/GeneratedInvoker";
+    private static final String HANDLE_DESCRIPTOR = "Ljava/lang/invoke/MethodHandle;";
+    private static final String EVENT = "org/bspfsystems/pluginevents/Event";
+    private static final MethodType BOUND_TYPE = MethodType.methodType(void.class, Event.class);
+    private static final MethodType UNBOUND_TYPE = MethodType.methodType(void.class, Object.class, Event.class);
+    
+    private static final Method DEFINE_HIDDEN_CLASS_WITH_CLASS_DATA;
+    private static final Object HIDDEN_CLASS_OPTIONS;
+    
+    static {
+        Method defineHiddenClassWithClassData;
+        Object hiddenClassOptions;
+        try {
+            final Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            hiddenClassOptions = Array.newInstance(classOption, 0);
+            defineHiddenClassWithClassData = MethodHandles.Lookup.class.getMethod("defineHiddenClassWithClassData", byte[].class, Object.class, boolean.class, hiddenClassOptions.getClass());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Hidden classes with class data are unavailable.
+            defineHiddenClassWithClassData = null;
+            hiddenClassOptions = null;
+        }
+        DEFINE_HIDDEN_CLASS_WITH_CLASS_DATA = defineHiddenClassWithClassData;
+        HIDDEN_CLASS_OPTIONS = hiddenClassOptions;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private InvokerCompiler() {
+        // Do nothing.
+    }
+    
+    /**
+     * Generates an invoker that calls the specified {@link MethodHandle} with
+     * each {@link Event}.
+     * 
+     * @param handle The {@link MethodHandle} of the {@link EventHandler}
+     *               method, with any receiver already bound.
+     * @return The generated invoker.
+     * @throws ReflectiveOperationException If the invoker class could not be
+     *                                      defined or instantiated.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    static Consumer<Event> compileBound(@NotNull final MethodHandle handle) throws ReflectiveOperationException {
+        return (Consumer<Event>) InvokerCompiler.compile(handle.asType(InvokerCompiler.BOUND_TYPE), false);
+    }
+    
+    /**
+     * Generates an invoker that calls the specified {@link MethodHandle} with
+     * each receiver and {@link Event}.
+     * 
+     * @param handle The {@link MethodHandle} of the {@link EventHandler}
+     *               method, taking the receiver (ignored for static methods)
+     *               and the {@link Event}.
+     * @return The generated invoker.
+     * @throws ReflectiveOperationException If the invoker class could not be
+     *                                      defined or instantiated.
+     */
+    @NotNull
+    @SuppressWarnings("unchecked")
+    static BiConsumer<Object, Event> compileUnbound(@NotNull final MethodHandle handle) throws ReflectiveOperationException {
+        return (BiConsumer<Object, Event>) InvokerCompiler.compile(handle.asType(InvokerCompiler.UNBOUND_TYPE), true);
+    }
+    
+    /**
+     * Defines the invoker class for the specified {@link MethodHandle}, and
+     * creates its single instance.
+     * 
+     * @param handle The {@link MethodHandle} to call.
+     * @param unbound {@code true} if the invoker takes the receiver as well
+     *                as the {@link Event}, {@code false} otherwise.
+     * @return The instance of the invoker class.
+     * @throws ReflectiveOperationException If the invoker class could not be
+     *                                      defined or instantiated.
+     * @throws UnsupportedOperationException If hidden classes with class data
+     *                                       are not supported by the
+     *                                       runtime.
+     */
+    @NotNull
+    private static Object compile(@NotNull final MethodHandle handle, final boolean unbound) throws ReflectiveOperationException {
+        
+        if (InvokerCompiler.DEFINE_HIDDEN_CLASS_WITH_CLASS_DATA == null) {
+            throw new UnsupportedOperationException("Hidden classes with class data are not supported on this runtime.");
+        }
+        
+        final byte[] bytes = InvokerCompiler.generate(unbound);
+        final MethodHandles.Lookup lookup = (MethodHandles.Lookup) InvokerCompiler.DEFINE_HIDDEN_CLASS_WITH_CLASS_DATA.invoke(MethodHandles.lookup(), bytes, handle, true, InvokerCompiler.HIDDEN_CLASS_OPTIONS);
+        final MethodHandle constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class));
+        try {
+            return constructor.invoke();
+        } catch (Throwable e) {
+            throw new ReflectiveOperationException("Unable to instantiate the invoker class.", e);
+        }
+    }
+    
+    /**
+     * Generates the bytes of the invoker class.
+     * <p>
+     * The static initializer loads the {@link MethodHandle} from the class
+     * data into a static final field, and {@code accept} calls it with
+     * {@link MethodHandle#invokeExact(Object...)}. Neither method branches,
+     * so no stack map frames are needed.
+     * 
+     * @param unbound {@code true} to implement {@link BiConsumer},
+     *                {@code false} to implement {@link Consumer}.
+     * @return The bytes of the class.
+     */
+    @NotNull
+    private static byte[] generate(final boolean unbound) {
+        
+        final ClassFile file = new ClassFile();
+        final int thisClass = file.classRef(InvokerCompiler.CLASS_NAME);
+        final int superClass = file.classRef("java/lang/Object");
+        final int consumer = file.classRef(unbound ? "java/util/function/BiConsumer" : "java/util/function/Consumer");
+        final int handleField = file.fieldRef(InvokerCompiler.CLASS_NAME, "handle", InvokerCompiler.HANDLE_DESCRIPTOR);
+        final String invokeDescriptor = unbound ? "(Ljava/lang/Object;L" + InvokerCompiler.EVENT + ";)V" : "(L" + InvokerCompiler.EVENT + ";)V";
+        
+        // Constructor: nothing to store.
+        final ClassFile.Bytes init = new ClassFile.Bytes();
+        init.u1(0x2A).u1(0xB7).u2(file.methodRef("java/lang/Object", "<init>", "()V"));
+        init.u1(0xB1);
+        
+        // Static initializer: handle = (MethodHandle) MethodHandles.classData(MethodHandles.lookup(), "_", MethodHandle.class)
+        final ClassFile.Bytes clinit = new ClassFile.Bytes();
+        clinit.u1(0xB8).u2(file.methodRef("java/lang/invoke/MethodHandles", "lookup", "()Ljava/lang/invoke/MethodHandles$Lookup;"));
+        clinit.u1(0x13).u2(file.string("_"));
+        clinit.u1(0x13).u2(file.classRef("java/lang/invoke/MethodHandle"));
+        clinit.u1(0xB8).u2(file.methodRef("java/lang/invoke/MethodHandles", "classData", "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/Object;"));
+        clinit.u1(0xC0).u2(file.classRef("java/lang/invoke/MethodHandle"));
+        clinit.u1(0xB3).u2(handleField);
+        clinit.u1(0xB1);
+        
+        // Accept: handle.invokeExact([receiver,] (Event) event)
+        final int invokeExact = file.methodRef("java/lang/invoke/MethodHandle", "invokeExact", invokeDescriptor);
+        final int eventClass = file.classRef(InvokerCompiler.EVENT);
+        final ClassFile.Bytes accept = new ClassFile.Bytes();
+        accept.u1(0xB2).u2(handleField);
+        if (unbound) {
+            accept.u1(0x2B).u1(0x2C);
+        } else {
+            accept.u1(0x2B);
+        }
+        accept.u1(0xC0).u2(eventClass);
+        accept.u1(0xB6).u2(invokeExact);
+        accept.u1(0xB1);
+        
+        final int[] handle = {file.utf8("handle"), file.utf8(InvokerCompiler.HANDLE_DESCRIPTOR)};
+        final int[] initMethod = {file.utf8("<init>"), file.utf8("()V")};
+        final int[] clinitMethod = {file.utf8("<clinit>"), file.utf8("()V")};
+        final int[] acceptMethod = {file.utf8("accept"), file.utf8(unbound ? "(Ljava/lang/Object;Ljava/lang/Object;)V" : "(Ljava/lang/Object;)V")};
+        final int codeName = file.utf8("Code");
+        
+        // The constant pool is complete, so the class can now be written.
+        final ClassFile.Bytes out = new ClassFile.Bytes();
+        out.u4(0xCAFEBABE).u2(0).u2(49);
+        out.u2(file.count()).bytes(file.constants());
+        out.u2(0x0030).u2(thisClass).u2(superClass);
+        out.u2(1).u2(consumer);
+        
+        out.u2(1);
+        ClassFile.field(out, 0x001A, handle);
+        
+        out.u2(3);
+        ClassFile.method(out, 0x0001, initMethod, codeName, 1, 1, init, new ClassFile.Bytes(), 0);
+        ClassFile.method(out, 0x0008, clinitMethod, codeName, 3, 0, clinit, new ClassFile.Bytes(), 0);
+        ClassFile.method(out, 0x0001, acceptMethod, codeName, unbound ? 3 : 2, unbound ? 3 : 2, accept, new ClassFile.Bytes(), 0);
+        
+        out.u2(0);
+        return out.toByteArray();
+    }
+}
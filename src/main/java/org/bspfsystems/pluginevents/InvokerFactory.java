@@ -0,0 +1,490 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates the invokers that the {@link EventBus} uses to call
+ * {@link EventHandler} methods.
+ * <p>
+ * Each invoker is created once when the {@link EventListener} is registered.
+ * Where possible, the invoker is a class generated by the
+ * {@link LambdaMetafactory} that calls the {@link EventHandler} method
+ * directly, which the JIT compiler is able to inline. If that is not possible,
+ * such as for an {@link EventListener} loaded by another {@link ClassLoader}
+ * on Java 14 and later, a class is generated by the {@link InvokerCompiler}
+ * that calls a constant {@link MethodHandle}, which can be inlined just the
+ * same. Only if that also fails is a {@link MethodHandle} held in a field
+ * used, and if even that fails, the invoker falls back to reflection. Each
+ * fallback is logged at {@link Level#FINE}.
+ * <p>
+ * Invokers for weakly-registered {@link EventListener EventListeners} do not
+ * strongly reference the {@link EventListener} or any of its classes. The
+ * unbound invoker for each method is stored with the class that declares the
+ * method via a {@link ClassValue}, so it lives exactly as long as that class.
+ */
+final class InvokerFactory {
+    
+    private static final String INVOKED_NAME = "accept";
+    private static final MethodType INVOKED_TYPE = MethodType.methodType(Consumer.class);
+    private static final MethodType SAM_TYPE = MethodType.methodType(void.class, Object.class);
+    private static final MethodType UNBOUND_INVOKED_TYPE = MethodType.methodType(BiConsumer.class);
+    private static final MethodType UNBOUND_SAM_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType HANDLE_TYPE = MethodType.methodType(void.class, Object.class, Event.class);
+    
+    private static final ClassValue<ConcurrentHashMap<Method, BiConsumer<Object, Event>>> UNBOUND_INVOKERS = new ClassValue<ConcurrentHashMap<Method, BiConsumer<Object, Event>>>() {
+        @Override
+        @NotNull
+        protected ConcurrentHashMap<Method, BiConsumer<Object, Event>> computeValue(@NotNull final Class<?> type) {
+            return new ConcurrentHashMap<Method, BiConsumer<Object, Event>>();
+        }
+    };
+    
+    private static final Method PRIVATE_LOOKUP_IN;
+    private static final Constructor<MethodHandles.Lookup> LOOKUP_CONSTRUCTOR;
+    private static final int ALL_MODES = MethodHandles.Lookup.PUBLIC | MethodHandles.Lookup.PRIVATE | MethodHandles.Lookup.PROTECTED | MethodHandles.Lookup.PACKAGE;
+    
+    static {
+        
+        // Java 9+
+        Method privateLookupIn;
+        try {
+            privateLookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException | SecurityException e) {
+            privateLookupIn = null;
+        }
+        
+        // Java 8
+        Constructor<MethodHandles.Lookup> lookupConstructor = null;
+        if (privateLookupIn == null) {
+            try {
+                lookupConstructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+                lookupConstructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException e) {
+                lookupConstructor = null;
+            }
+        }
+        
+        PRIVATE_LOOKUP_IN = privateLookupIn;
+        LOOKUP_CONSTRUCTOR = lookupConstructor;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private InvokerFactory() {
+        // Do nothing.
+    }
+    
+    /**
+     * Creates the invoker for the specified {@link EventHandler} method.
+     * <p>
+     * If the method is not static, the specified {@link EventListener} is
+     * bound into the invoker as the receiver, so each invoker always calls
+     * the method on the same instance.
+     * 
+     * @param listener The {@link EventListener} that the method belongs to.
+     * @param method The {@link EventHandler} method to create the invoker for.
+     * @param eventType The type of {@link Event} that the method accepts.
+     * @param logger The {@link Logger} to log any fallback to.
+     * @return The invoker for the {@link EventHandler} method.
+     */
+    @NotNull
+    static Consumer<Event> create(@NotNull final EventListener listener, @NotNull final Method method, @NotNull final Class<?> eventType, @NotNull final Logger logger) {
+        
+        final boolean isStatic = Modifier.isStatic(method.getModifiers());
+        final Object receiver = isStatic ? null : listener;
+        
+        final MethodHandles.Lookup lookup = InvokerFactory.privateLookup(method.getDeclaringClass());
+        if (lookup == null) {
+            InvokerFactory.logFallback(logger, method, "reflective", null);
+            return new ReflectiveInvoker(receiver, method);
+        }
+        
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "reflective", e);
+            return new ReflectiveInvoker(receiver, method);
+        }
+        
+        try {
+            final MethodType invokedType = isStatic ? InvokerFactory.INVOKED_TYPE : InvokerFactory.INVOKED_TYPE.appendParameterTypes(method.getDeclaringClass());
+            final CallSite callSite = LambdaMetafactory.metafactory(lookup, InvokerFactory.INVOKED_NAME, invokedType, InvokerFactory.SAM_TYPE, handle, MethodType.methodType(void.class, eventType));
+            @SuppressWarnings("unchecked")
+            final Consumer<Event> invoker = (Consumer<Event>) (isStatic ? callSite.getTarget().invoke() : callSite.getTarget().invoke(receiver));
+            return invoker;
+        } catch (Throwable e) {
+            // Fall through to the generated invoker.
+        }
+        
+        try {
+            return InvokerCompiler.compileBound(InvokerFactory.adapt(handle, isStatic).bindTo(receiver));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "MethodHandle", e);
+        }
+        
+        try {
+            return new MethodHandleInvoker(receiver, InvokerFactory.adapt(handle, isStatic));
+        } catch (RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "reflective", e);
+            return new ReflectiveInvoker(receiver, method);
+        }
+    }
+    
+    /**
+     * Creates the invoker for the specified {@link EventHandler} method of a
+     * weakly-registered {@link EventListener}.
+     * <p>
+     * The invoker only weakly references the {@link EventListener} and the
+     * unbound invoker for the method. Once either has been garbage collected,
+     * the invoker does nothing, and {@link #isCollected(Consumer)} will
+     * return {@code true} for it.
+     * 
+     * @param listener The {@link WeakReference} to the {@link EventListener}
+     *                 that the method belongs to.
+     * @param method The {@link EventHandler} method to create the invoker for.
+     * @param eventType The type of {@link Event} that the method accepts.
+     * @param logger The {@link Logger} to log any fallback to.
+     * @return The invoker for the {@link EventHandler} method.
+     */
+    @NotNull
+    static Consumer<Event> createWeak(@NotNull final WeakReference<EventListener> listener, @NotNull final Method method, @NotNull final Class<?> eventType, @NotNull final Logger logger) {
+        final BiConsumer<Object, Event> unbound = InvokerFactory.UNBOUND_INVOKERS.get(method.getDeclaringClass()).computeIfAbsent(method, newUnbound -> InvokerFactory.createUnbound(method, eventType, logger));
+        return new WeakInvoker(listener, unbound, Modifier.isStatic(method.getModifiers()));
+    }
+    
+    /**
+     * Creates the invoker for the specified unbound invoker, such as one
+     * provided by a generated {@link ListenerRegistrar}, of a
+     * weakly-registered {@link EventListener}.
+     * 
+     * @param listener The {@link WeakReference} to the {@link EventListener}
+     *                 that the method belongs to.
+     * @param unbound The unbound invoker for the method.
+     * @param isStatic {@code true} if the method is static, {@code false}
+     *                 otherwise.
+     * @return The invoker for the {@link EventHandler} method.
+     * @see #createWeak(WeakReference, Method, Class, Logger)
+     */
+    @NotNull
+    static Consumer<Event> createWeak(@NotNull final WeakReference<EventListener> listener, @NotNull final BiConsumer<Object, Event> unbound, final boolean isStatic) {
+        return new WeakInvoker(listener, unbound, isStatic);
+    }
+    
+    /**
+     * Checks if the specified invoker was created for a weakly-registered
+     * {@link EventListener} that has since been garbage collected.
+     * 
+     * @param invoker The invoker to check.
+     * @return {@code true} if the invoker can no longer be called,
+     *         {@code false} otherwise.
+     */
+    static boolean isCollected(@NotNull final Consumer<Event> invoker) {
+        return invoker instanceof WeakInvoker && ((WeakInvoker) invoker).isCollected();
+    }
+    
+    /**
+     * Creates an invoker for the specified {@link EventHandler} method that
+     * takes the receiver as its first argument, rather than having it bound.
+     * 
+     * @param method The {@link EventHandler} method to create the invoker for.
+     * @param eventType The type of {@link Event} that the method accepts.
+     * @param logger The {@link Logger} to log any fallback to.
+     * @return The unbound invoker for the {@link EventHandler} method.
+     */
+    @NotNull
+    private static BiConsumer<Object, Event> createUnbound(@NotNull final Method method, @NotNull final Class<?> eventType, @NotNull final Logger logger) {
+        
+        final boolean isStatic = Modifier.isStatic(method.getModifiers());
+        
+        final MethodHandles.Lookup lookup = InvokerFactory.privateLookup(method.getDeclaringClass());
+        if (lookup == null) {
+            InvokerFactory.logFallback(logger, method, "reflective", null);
+            return new ReflectiveInvoker(null, method);
+        }
+        
+        final MethodHandle handle;
+        try {
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException | RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "reflective", e);
+            return new ReflectiveInvoker(null, method);
+        }
+        
+        try {
+            if (isStatic) {
+                final CallSite callSite = LambdaMetafactory.metafactory(lookup, InvokerFactory.INVOKED_NAME, InvokerFactory.INVOKED_TYPE, InvokerFactory.SAM_TYPE, handle, MethodType.methodType(void.class, eventType));
+                @SuppressWarnings("unchecked")
+                final Consumer<Event> invoker = (Consumer<Event>) callSite.getTarget().invoke();
+                return (receiver, event) -> invoker.accept(event);
+            }
+            
+            final CallSite callSite = LambdaMetafactory.metafactory(lookup, InvokerFactory.INVOKED_NAME, InvokerFactory.UNBOUND_INVOKED_TYPE, InvokerFactory.UNBOUND_SAM_TYPE, handle, MethodType.methodType(void.class, method.getDeclaringClass(), eventType));
+            @SuppressWarnings("unchecked")
+            final BiConsumer<Object, Event> invoker = (BiConsumer<Object, Event>) callSite.getTarget().invoke();
+            return invoker;
+        } catch (Throwable e) {
+            // Fall through to the generated invoker.
+        }
+        
+        try {
+            return InvokerCompiler.compileUnbound(InvokerFactory.adapt(handle, isStatic));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "MethodHandle", e);
+        }
+        
+        try {
+            return new MethodHandleInvoker(null, InvokerFactory.adapt(handle, isStatic));
+        } catch (RuntimeException e) {
+            InvokerFactory.logFallback(logger, method, "reflective", e);
+            return new ReflectiveInvoker(null, method);
+        }
+    }
+    
+    /**
+     * Adapts the specified {@link MethodHandle} to take a receiver and an
+     * {@link Event}. For static methods, the receiver is ignored.
+     * 
+     * @param handle The {@link MethodHandle} of the {@link EventHandler}
+     *               method.
+     * @param isStatic {@code true} if the method is static, {@code false}
+     *                 otherwise.
+     * @return The adapted {@link MethodHandle}.
+     */
+    @NotNull
+    private static MethodHandle adapt(@NotNull final MethodHandle handle, final boolean isStatic) {
+        return (isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle).asType(InvokerFactory.HANDLE_TYPE);
+    }
+    
+    /**
+     * Gets a {@link MethodHandles.Lookup} with private access to the specified
+     * {@link Class}.
+     * 
+     * @param clazz The {@link Class} to get the {@link MethodHandles.Lookup}
+     *              for.
+     * @return The {@link MethodHandles.Lookup} with private access, or
+     *         {@code null} if one could not be created.
+     */
+    @Nullable
+    private static MethodHandles.Lookup privateLookup(@NotNull final Class<?> clazz) {
+        
+        try {
+            if (InvokerFactory.PRIVATE_LOOKUP_IN != null) {
+                return (MethodHandles.Lookup) InvokerFactory.PRIVATE_LOOKUP_IN.invoke(null, clazz, MethodHandles.lookup());
+            }
+            if (InvokerFactory.LOOKUP_CONSTRUCTOR != null) {
+                return InvokerFactory.LOOKUP_CONSTRUCTOR.newInstance(clazz, InvokerFactory.ALL_MODES);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Fall through to the reflective invoker.
+        }
+        return null;
+    }
+    
+    /**
+     * Logs that an {@link EventHandler} method could not be given a direct
+     * invoker, and will be called through a slower one instead.
+     * 
+     * @param logger The {@link Logger} to log to.
+     * @param method The {@link EventHandler} method.
+     * @param invoker The kind of invoker that is used instead.
+     * @param cause The reason that the faster invoker could not be created,
+     *              if any.
+     */
+    private static void logFallback(@NotNull final Logger logger, @NotNull final Method method, @NotNull final String invoker, @Nullable final Throwable cause) {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "Unable to create a direct invoker for EventHandler method " + method.getDeclaringClass().getName() + "#" + method.getName() + "; using a " + invoker + " invoker instead.", cause);
+        }
+    }
+    
+    /**
+     * Throws the specified {@link Throwable} without it needing to be declared.
+     * 
+     * @param throwable The {@link Throwable} to throw.
+     * @param <T> The type of {@link Throwable} to throw.
+     * @throws T Always.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Throwable> void sneakyThrow(@NotNull final Throwable throwable) throws T {
+        throw (T) throwable;
+    }
+    
+    /**
+     * Invokes an {@link EventHandler} method via a {@link MethodHandle}.
+     */
+    private static final class MethodHandleInvoker implements Consumer<Event>, BiConsumer<Object, Event> {
+        
+        private final Object receiver;
+        private final MethodHandle handle;
+        
+        /**
+         * Constructs a new {@link MethodHandleInvoker}.
+         * 
+         * @param receiver The {@link EventListener} to invoke the method on,
+         *                 or {@code null} if the method is static or the
+         *                 receiver is passed in on each call.
+         * @param handle The {@link MethodHandle} to invoke, adapted to take
+         *               the receiver and the {@link Event}.
+         */
+        private MethodHandleInvoker(@Nullable final Object receiver, @NotNull final MethodHandle handle) {
+            this.receiver = receiver;
+            this.handle = handle;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(@NotNull final Event event) {
+            this.accept(this.receiver, event);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(@Nullable final Object receiver, @NotNull final Event event) {
+            try {
+                this.handle.invokeExact(receiver, event);
+            } catch (Throwable e) {
+                InvokerFactory.sneakyThrow(e);
+            }
+        }
+    }
+    
+    /**
+     * Invokes an {@link EventHandler} method via reflection. This is the
+     * fallback if a more direct invoker cannot be created.
+     */
+    private static final class ReflectiveInvoker implements Consumer<Event>, BiConsumer<Object, Event> {
+        
+        private final Object receiver;
+        private final Method method;
+        
+        /**
+         * Constructs a new {@link ReflectiveInvoker}.
+         * 
+         * @param receiver The {@link EventListener} to invoke the method on,
+         *                 or {@code null} if the method is static or the
+         *                 receiver is passed in on each call.
+         * @param method The {@link EventHandler} method to invoke.
+         */
+        private ReflectiveInvoker(@Nullable final Object receiver, @NotNull final Method method) {
+            try {
+                method.setAccessible(true);
+            } catch (RuntimeException e) {
+                // Invocation will fail and be logged if it is not accessible.
+            }
+            this.receiver = receiver;
+            this.method = method;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(@NotNull final Event event) {
+            this.accept(this.receiver, event);
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(@Nullable final Object receiver, @NotNull final Event event) {
+            try {
+                this.method.invoke(receiver, event);
+            } catch (InvocationTargetException e) {
+                InvokerFactory.sneakyThrow(e.getCause());
+            } catch (IllegalAccessException e) {
+                InvokerFactory.sneakyThrow(e);
+            }
+        }
+    }
+    
+    /**
+     * Invokes an {@link EventHandler} method of a weakly-registered
+     * {@link EventListener}.
+     */
+    private static final class WeakInvoker implements Consumer<Event> {
+        
+        private final WeakReference<EventListener> listener;
+        private final WeakReference<BiConsumer<Object, Event>> unbound;
+        private final boolean isStatic;
+        
+        /**
+         * Constructs a new {@link WeakInvoker}.
+         * 
+         * @param listener The {@link WeakReference} to the
+         *                 {@link EventListener} that the method belongs to.
+         * @param unbound The unbound invoker for the method.
+         * @param isStatic {@code true} if the method is static, {@code false}
+         *                 otherwise.
+         */
+        private WeakInvoker(@NotNull final WeakReference<EventListener> listener, @NotNull final BiConsumer<Object, Event> unbound, final boolean isStatic) {
+            this.listener = listener;
+            this.unbound = new WeakReference<BiConsumer<Object, Event>>(unbound);
+            this.isStatic = isStatic;
+        }
+        
+        /**
+         * Checks if the {@link EventListener} or the unbound invoker has been
+         * garbage collected.
+         * 
+         * @return {@code true} if either has been garbage collected,
+         *         {@code false} otherwise.
+         */
+        private boolean isCollected() {
+            return this.listener.get() == null || this.unbound.get() == null;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void accept(@NotNull final Event event) {
+            final EventListener listener = this.listener.get();
+            final BiConsumer<Object, Event> unbound = this.unbound.get();
+            if (listener != null && unbound != null) {
+                unbound.accept(this.isStatic ? null : listener, event);
+            }
+        }
+    }
+}
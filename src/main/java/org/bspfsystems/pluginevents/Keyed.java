@@ -0,0 +1,53 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Implemented by some {@link Event Events} if they concern a single entity
+ * (a player, a world, a channel, etc.), identified by a key.
+ * <p>
+ * {@link EventHandler EventHandlers} registered with a key (see
+ * {@link EventBus#registerKeyedListener(Object, EventListener, java.util.logging.Logger)})
+ * are only called for {@link Keyed} {@link Event Events} with an equal key,
+ * along with all {@link EventHandler EventHandlers} registered without one.
+ * The {@link EventBus} finds them with a single hash lookup, rather than
+ * calling every {@link EventHandler} to check the key itself.
+ */
+public interface Keyed {
+    
+    /**
+     * Gets the key of the entity that the {@link Event} concerns.
+     * <p>
+     * The key is compared using {@link Object#equals(Object)} and
+     * {@link Object#hashCode()}, so it should be an immutable value, such as
+     * a {@link java.util.UUID} or a {@link String}.
+     * 
+     * @return The key of the {@link Event}, or {@code null} if it does not
+     *         concern a single entity, in which case only the
+     *         {@link EventHandler EventHandlers} registered without a key are
+     *         called.
+     */
+    @Nullable
+    Object getEventKey();
+}
@@ -0,0 +1,89 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Registers the {@link EventHandler} methods of a single
+ * {@link EventListener} class without reflection. Implementations are
+ * generated at compile time by the optional PluginEvents annotation
+ * processor, and are not intended to be written by hand.
+ * <p>
+ * When an {@link EventListener} is registered, the {@link EventBus} looks for
+ * a class with the name of the {@link EventListener} class followed by
+ * {@link #SUFFIX}, in the same {@link ClassLoader}. If one exists, the
+ * {@link EventHandler} methods described by it are registered directly.
+ * Otherwise, the {@link EventListener} class is scanned reflectively.
+ */
+public interface ListenerRegistrar {
+    
+    /**
+     * The suffix appended to the binary name of an {@link EventListener}
+     * class to get the name of its generated {@link ListenerRegistrar}.
+     */
+    String SUFFIX = "_EventRegistrar";
+    
+    /**
+     * Describes each {@link EventHandler} method of the {@link EventListener}
+     * class to the specified {@link Collector}.
+     * 
+     * @param collector The {@link Collector} to describe the
+     *                  {@link EventHandler} methods to.
+     */
+    void collectHandlers(@NotNull Collector collector);
+    
+    /**
+     * Receives the {@link EventHandler} methods described by a
+     * {@link ListenerRegistrar}.
+     */
+    interface Collector {
+        
+        /**
+         * Adds an {@link EventHandler} method.
+         * 
+         * @param declaringClass The class that declares the method.
+         * @param eventType The type of {@link Event} that the method accepts.
+         * @param methodName The name of the method.
+         * @param priority The {@link EventHandler#priority()} of the method.
+         * @param order The {@link EventHandler#order()} of the method.
+         * @param ignoreCancelled The {@link EventHandler#ignoreCancelled()}
+         *                        value of the method.
+         * @param blocking The {@link EventHandler#blocking()} value of the
+         *                 method.
+         * @param isStatic {@code true} if the method is static, {@code false}
+         *                 otherwise.
+         * @param invoker Calls the method directly, given the
+         *                {@link EventListener} (ignored if the method is
+         *                static) and the {@link Event}. It is used for
+         *                weakly-registered {@link EventListener EventListeners}.
+         * @param binder Creates an invoker that calls the method directly on
+         *               the given {@link EventListener} (ignored if the
+         *               method is static). It is declared separately for
+         *               each method so that each invoker keeps its own call
+         *               site.
+         */
+        void handler(@NotNull Class<?> declaringClass, @NotNull Class<?> eventType, @NotNull String methodName, @NotNull EventPriority priority, int order, boolean ignoreCancelled, boolean blocking, boolean isStatic, @NotNull BiConsumer<Object, Event> invoker, @NotNull Function<Object, Consumer<Event>> binder);
+    }
+}
@@ -0,0 +1,179 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The {@link Registration} returned by the {@link EventBus}. It holds the
+ * {@link HandlerSlot HandlerSlots} that were registered, so that they can be
+ * removed directly from their {@link HandlerList HandlerLists}.
+ * <p>
+ * Each {@link HandlerSlot} refers back to its {@link ListenerRegistration} as
+ * its owner, so the {@link EventListener} (or the single
+ * {@link WeakReference} to it) is shared by all of them.
+ */
+final class ListenerRegistration implements Registration {
+    
+    private final EventBus eventBus;
+    private final EventListener listener;
+    private final WeakReference<EventListener> weakListener;
+    private final Object key;
+    private final AtomicBoolean registered;
+    private HandlerSlot[] slots;
+    
+    /**
+     * Constructs a new {@link ListenerRegistration}. The
+     * {@link HandlerSlot HandlerSlots} are set once they have all been
+     * registered.
+     * 
+     * @param eventBus The {@link EventBus} the {@link HandlerSlot HandlerSlots}
+     *                 are registered with.
+     * @param listener The {@link EventListener} that is registered.
+     * @param queue The {@link ReferenceQueue} to be notified when the
+     *              {@link EventListener} is garbage collected if it is
+     *              registered weakly, or {@code null} if it is registered
+     *              strongly.
+     * @param key The key that the {@link HandlerSlot HandlerSlots} are
+     *            registered for, or {@code null} if they are called for all
+     *            {@link Event Events}.
+     */
+    ListenerRegistration(@NotNull final EventBus eventBus, @NotNull final EventListener listener, @Nullable final ReferenceQueue<EventListener> queue, @Nullable final Object key) {
+        this.eventBus = eventBus;
+        this.listener = queue == null ? listener : null;
+        this.weakListener = queue == null ? null : new WeakListener(listener, queue, this);
+        this.key = key;
+        this.registered = new AtomicBoolean(true);
+        this.slots = new HandlerSlot[0];
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public EventListener getListener() {
+        return this.weakListener == null ? this.listener : this.weakListener.get();
+    }
+    
+    /**
+     * Gets the key that the {@link HandlerSlot HandlerSlots} are registered
+     * for, as compared with {@link Keyed#getEventKey()}.
+     * 
+     * @return The key, or {@code null} if the
+     *         {@link HandlerSlot HandlerSlots} are called for all
+     *         {@link Event Events}.
+     */
+    @Nullable
+    Object getKey() {
+        return this.key;
+    }
+    
+    /**
+     * Gets the {@link WeakReference} to the {@link EventListener}, if it is
+     * registered weakly.
+     * 
+     * @return The {@link WeakReference} to the {@link EventListener}, or
+     *         {@code null} if it is registered strongly.
+     */
+    @Nullable
+    WeakReference<EventListener> getWeakListener() {
+        return this.weakListener;
+    }
+    
+    /**
+     * Gets the {@link HandlerSlot HandlerSlots} that were registered.
+     * 
+     * @return The {@link HandlerSlot HandlerSlots} that were registered.
+     */
+    @NotNull
+    HandlerSlot[] getSlots() {
+        return this.slots;
+    }
+    
+    /**
+     * Sets the {@link HandlerSlot HandlerSlots} that were registered.
+     * 
+     * @param slots The {@link HandlerSlot HandlerSlots} that were registered.
+     */
+    void setSlots(@NotNull final HandlerSlot[] slots) {
+        this.slots = slots;
+    }
+    
+    /**
+     * Marks this {@link ListenerRegistration} as unregistered.
+     * 
+     * @return {@code true} if it was still registered, {@code false} if it
+     *         had already been unregistered.
+     */
+    boolean markUnregistered() {
+        return this.registered.compareAndSet(true, false);
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void unregister() {
+        if (this.markUnregistered()) {
+            this.eventBus.unregister(this.slots);
+        }
+    }
+    
+    /**
+     * The {@link WeakReference} to a weakly-registered {@link EventListener}.
+     * Once the {@link EventListener} has been garbage collected, the
+     * {@link EventBus} finds the {@link ListenerRegistration} through it, so
+     * that only its {@link HandlerSlot HandlerSlots} are removed.
+     */
+    static final class WeakListener extends WeakReference<EventListener> {
+        
+        private final ListenerRegistration registration;
+        
+        /**
+         * Constructs a new {@link WeakListener}.
+         * 
+         * @param listener The weakly-registered {@link EventListener}.
+         * @param queue The {@link ReferenceQueue} to be notified when the
+         *              {@link EventListener} is garbage collected.
+         * @param registration The {@link ListenerRegistration} of the
+         *                     {@link EventListener}.
+         */
+        private WeakListener(@NotNull final EventListener listener, @NotNull final ReferenceQueue<EventListener> queue, @NotNull final ListenerRegistration registration) {
+            super(listener, queue);
+            this.registration = registration;
+        }
+        
+        /**
+         * Gets the {@link ListenerRegistration} of the {@link EventListener}.
+         * 
+         * @return The {@link ListenerRegistration}.
+         */
+        @NotNull
+        ListenerRegistration getRegistration() {
+            return this.registration;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bspfsystems.pluginevents;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the registration of an {@link EventListener} with the
+ * {@link EventBus}, returned by
+ * {@link EventBus#registerListener(EventListener, java.util.logging.Logger)}.
+ * <p>
+ * It can be used to unregister all {@link EventHandler EventHandlers} that
+ * were registered with it, such as when a plugin is disabled or reloaded.
+ */
+public interface Registration {
+    
+    /**
+     * Gets the {@link EventListener} that was registered.
+     * 
+     * @return The {@link EventListener} that was registered, or {@code null}
+     *         if it was registered weakly and has been garbage collected.
+     * @see EventBus#registerWeakListener(EventListener, java.util.logging.Logger)
+     */
+    @Nullable
+    EventListener getListener();
+    
+    /**
+     * Unregisters all {@link EventHandler EventHandlers} that were registered
+     * with this {@link Registration}. They will no longer be called for any
+     * {@link Event Events}.
+     * <p>
+     * Calling this method more than once has no further effect.
+     */
+    void unregister();
+}
@@ -0,0 +1,194 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that calling an {@link Event} does not allocate, both through the
+ * generic dispatch loop and through a generated {@link Dispatcher}.
+ */
+final class AllocationTest {
+    
+    private static final int WARMUP_CALLS = 50000;
+    private static final int MEASURED_CALLS = 100000;
+    private static final int ROUNDS = 5;
+    
+    /**
+     * Checks that the generic dispatch loop does not allocate.
+     */
+    @Test
+    void genericLoopDoesNotAllocate() {
+        final EventBus eventBus = AllocationTest.createEventBus(-1);
+        Assertions.assertEquals(0L, AllocationTest.measure(eventBus));
+    }
+    
+    /**
+     * Checks that a generated {@link Dispatcher} does not allocate.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void generatedDispatcherDoesNotAllocate() throws Exception {
+        
+        Assumptions.assumeTrue(DispatcherCompilerTest.hasHiddenClasses());
+        
+        final EventBus eventBus = AllocationTest.createEventBus(1);
+        eventBus.callEvent(new TestEvent());
+        eventBus.callEvent(new TestEvent());
+        Assertions.assertNotNull(EventRegistryTest.getDispatchTable(eventBus, TestEvent.class).getDispatcher());
+        
+        Assertions.assertEquals(0L, AllocationTest.measure(eventBus));
+    }
+    
+    /**
+     * Creates an {@link EventBus} with a cancelling {@link EventHandler}, an
+     * {@link EventHandler} that ignores cancelled {@link Event Events}, and a
+     * monitoring {@link EventHandler}. Logging is disabled, so only the
+     * dispatch itself is measured.
+     * 
+     * @param threshold The dispatcher threshold of the {@link EventBus}.
+     * @return The new {@link EventBus}.
+     */
+    @NotNull
+    private static EventBus createEventBus(final int threshold) {
+        final Logger logger = Logger.getLogger(AllocationTest.class.getName());
+        logger.setLevel(Level.OFF);
+        final EventBus eventBus = new EventBus();
+        eventBus.setDispatcherThreshold(threshold);
+        eventBus.registerListener(new TestListener(), logger);
+        return eventBus;
+    }
+    
+    /**
+     * Measures the bytes allocated by the current thread while calling an
+     * {@link Event} repeatedly, after warming up.
+     * <p>
+     * The fewest bytes allocated in any of several rounds is returned, as a
+     * one-off allocation (such as while the JIT compiler replaces a method)
+     * may land in a round. An allocation made by every call shows up in
+     * every round.
+     * 
+     * @param eventBus The {@link EventBus} to call the {@link Event} on.
+     * @return The fewest bytes allocated in a round, less those allocated by
+     *         the measurement itself.
+     */
+    private static long measure(@NotNull final EventBus eventBus) {
+        
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        
+        final TestEvent event = new TestEvent();
+        for (int call = 0; call < AllocationTest.WARMUP_CALLS; call++) {
+            event.setCancelled(false);
+            eventBus.callEvent(event);
+        }
+        
+        final long threadId = Thread.currentThread().getId();
+        final long overheadStart = threads.getThreadAllocatedBytes(threadId);
+        final long overheadEnd = threads.getThreadAllocatedBytes(threadId);
+        
+        long fewest = Long.MAX_VALUE;
+        for (int round = 0; round < AllocationTest.ROUNDS; round++) {
+            final long start = threads.getThreadAllocatedBytes(threadId);
+            for (int call = 0; call < AllocationTest.MEASURED_CALLS; call++) {
+                event.setCancelled(false);
+                eventBus.callEvent(event);
+            }
+            final long end = threads.getThreadAllocatedBytes(threadId);
+            fewest = Math.min(fewest, end - start);
+        }
+        
+        return Math.max(0L, fewest - (overheadEnd - overheadStart));
+    }
+    
+    /**
+     * A {@link Cancellable} {@link Event} for the test.
+     */
+    public static final class TestEvent extends Event implements Cancellable {
+        
+        private boolean cancelled;
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+    
+    /**
+     * An {@link EventListener} that cancels the {@link TestEvent}, and then
+     * observes it.
+     */
+    public static final class TestListener implements EventListener {
+        
+        private int calls;
+        
+        /**
+         * Cancels the {@link TestEvent}.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOW)
+        public void onLow(@NotNull final TestEvent event) {
+            event.setCancelled(true);
+        }
+        
+        /**
+         * Is skipped, as the {@link TestEvent} is always cancelled.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(ignoreCancelled = true)
+        public void onNormal(@NotNull final TestEvent event) {
+            this.calls++;
+        }
+        
+        /**
+         * Observes the {@link TestEvent}.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onMonitor(@NotNull final TestEvent event) {
+            this.calls++;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link EventBus#callEvents(List)} splits a batch into runs that
+ * share a {@link DispatchTable}, and calls each run one
+ * {@link EventHandler} at a time.
+ */
+final class CallEventsTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(CallEventsTest.class.getName());
+    
+    static {
+        CallEventsTest.LOGGER.setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that a batch {@link EventHandler} is called once for each run of
+     * {@link Event Events} of the same type and key, in order, including when
+     * the batch is not a {@link java.util.RandomAccess} {@link List}.
+     */
+    @Test
+    void runsAreSplitByDispatchTable() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new BatchListener(calls), CallEventsTest.LOGGER);
+        eventBus.registerKeyedListener("a", new KeyListener(calls), CallEventsTest.LOGGER);
+        
+        final LinkedList<Event> events = new LinkedList<Event>();
+        events.add(new NumberedEvent(1));
+        events.add(new NumberedEvent(2));
+        events.add(new KeyedNumberedEvent("a", 3));
+        events.add(new KeyedNumberedEvent("a", 4));
+        events.add(new KeyedNumberedEvent("b", 5));
+        events.add(new NumberedEvent(6));
+        eventBus.callEvents(events);
+        
+        Assertions.assertEquals(Arrays.asList("batch:1,2", "batch:3,4", "a:3", "a:4", "batch:5", "batch:6"), calls);
+    }
+    
+    /**
+     * Checks that cancelling {@link Event Events} within a run only hides
+     * those {@link Event Events} from the later
+     * {@link EventHandler EventHandlers} that ignore cancelled ones, and that
+     * the cancellation is visible on the {@link Event Events} afterwards.
+     */
+    @Test
+    void cancellationAppliesToEachEventOfARun() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new CancellingListener(calls), CallEventsTest.LOGGER);
+        
+        final List<NumberedEvent> events = Arrays.asList(new NumberedEvent(1), new NumberedEvent(2), new NumberedEvent(3), new NumberedEvent(4));
+        eventBus.callEvents(events);
+        
+        Assertions.assertEquals(Arrays.asList("low:1", "low:2", "low:3", "low:4", "uncancelled:2,4", "monitor:1", "monitor:2", "monitor:3", "monitor:4"), calls);
+        Assertions.assertTrue(events.get(0).isCancelled());
+        Assertions.assertFalse(events.get(1).isCancelled());
+        Assertions.assertTrue(events.get(2).isCancelled());
+        Assertions.assertFalse(events.get(3).isCancelled());
+    }
+    
+    /**
+     * Describes the specified {@link Numbered} {@link Event Events} by their
+     * numbers.
+     * 
+     * @param events The {@link Numbered} {@link Event Events}.
+     * @return Their numbers, separated by commas.
+     */
+    @NotNull
+    private static String describe(@NotNull final List<? extends Numbered> events) {
+        
+        final StringBuilder builder = new StringBuilder();
+        for (final Numbered event : events) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(event.getNumber());
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * An {@link Event} that carries a number.
+     */
+    public interface Numbered {
+        
+        /**
+         * Gets the number of this {@link Event}.
+         * 
+         * @return The number.
+         */
+        int getNumber();
+    }
+    
+    /**
+     * A {@link Cancellable} {@link Numbered} {@link Event}.
+     */
+    public static final class NumberedEvent extends Event implements Numbered, Cancellable {
+        
+        private final int number;
+        private boolean cancelled;
+        
+        /**
+         * Constructs a new {@link NumberedEvent}.
+         * 
+         * @param number The number of the {@link NumberedEvent}.
+         */
+        NumberedEvent(final int number) {
+            this.number = number;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getNumber() {
+            return this.number;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+    
+    /**
+     * A {@link Keyed} {@link Numbered} {@link Event}.
+     */
+    public static final class KeyedNumberedEvent extends Event implements Numbered, Keyed {
+        
+        private final Object key;
+        private final int number;
+        
+        /**
+         * Constructs a new {@link KeyedNumberedEvent}.
+         * 
+         * @param key The key of the {@link KeyedNumberedEvent}.
+         * @param number The number of the {@link KeyedNumberedEvent}.
+         */
+        KeyedNumberedEvent(@NotNull final Object key, final int number) {
+            this.key = key;
+            this.number = number;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getNumber() {
+            return this.number;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public Object getEventKey() {
+            return this.key;
+        }
+    }
+    
+    /**
+     * An {@link EventListener} with a batch {@link EventHandler} for every
+     * {@link Numbered} {@link Event}.
+     */
+    public static final class BatchListener implements EventListener {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link BatchListener}.
+         * 
+         * @param calls The {@link List} to record the calls to.
+         */
+        BatchListener(@NotNull final List<String> calls) {
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the batch.
+         * 
+         * @param events The {@link Numbered} {@link Event Events} of the run.
+         */
+        @EventHandler(priority = EventPriority.LOW)
+        public void onBatch(@NotNull final List<Numbered> events) {
+            this.calls.add("batch:" + CallEventsTest.describe(events));
+        }
+    }
+    
+    /**
+     * An {@link EventListener} that is registered for a single key.
+     */
+    public static final class KeyListener implements EventListener {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link KeyListener}.
+         * 
+         * @param calls The {@link List} to record the calls to.
+         */
+        KeyListener(@NotNull final List<String> calls) {
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link KeyedNumberedEvent}.
+         */
+        @EventHandler(priority = EventPriority.HIGH)
+        public void onKeyed(@NotNull final KeyedNumberedEvent event) {
+            this.calls.add(event.getEventKey() + ":" + event.getNumber());
+        }
+    }
+    
+    /**
+     * An {@link EventListener} that cancels the odd
+     * {@link NumberedEvent NumberedEvents}, and then observes them.
+     */
+    public static final class CancellingListener implements EventListener {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link CancellingListener}.
+         * 
+         * @param calls The {@link List} to record the calls to.
+         */
+        CancellingListener(@NotNull final List<String> calls) {
+            this.calls = calls;
+        }
+        
+        /**
+         * Cancels the {@link NumberedEvent} if its number is odd.
+         * 
+         * @param event The {@link NumberedEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOW)
+        public void onLow(@NotNull final NumberedEvent event) {
+            this.calls.add("low:" + event.getNumber());
+            event.setCancelled(event.getNumber() % 2 != 0);
+        }
+        
+        /**
+         * Records the batch of uncancelled
+         * {@link NumberedEvent NumberedEvents}.
+         * 
+         * @param events The uncancelled {@link NumberedEvent NumberedEvents}.
+         */
+        @EventHandler(ignoreCancelled = true)
+        public void onUncancelled(@NotNull final List<NumberedEvent> events) {
+            this.calls.add("uncancelled:" + CallEventsTest.describe(events));
+        }
+        
+        /**
+         * Records the {@link NumberedEvent}.
+         * 
+         * @param event The {@link NumberedEvent}.
+         */
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onMonitor(@NotNull final NumberedEvent event) {
+            this.calls.add("monitor:" + event.getNumber());
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a {@link CoalescingQueue} only calls the latest
+ * {@link Coalescing} {@link Event} for each key, in order, and keeps
+ * flushing.
+ */
+final class CoalescingQueueTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(CoalescingQueueTest.class.getName());
+    
+    static {
+        CoalescingQueueTest.LOGGER.setLevel(Level.OFF);
+        Logger.getLogger(CoalescingQueue.class.getName()).setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that an {@link Event} replaces the pending one with the same
+     * key, keeping its position, and that other {@link Event Events} are
+     * called immediately.
+     */
+    @Test
+    void latestEventPerKeyIsCalledInFirstOfferedOrder() {
+        
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new StateListener(calls), CoalescingQueueTest.LOGGER);
+        final CoalescingQueue queue = new CoalescingQueue(eventBus);
+        
+        Assertions.assertFalse(queue.offer(new StateEvent("a", 1)));
+        Assertions.assertFalse(queue.offer(new StateEvent("b", 1)));
+        Assertions.assertTrue(queue.offer(new StateEvent("a", 2)));
+        Assertions.assertFalse(queue.offer(new PlainEvent()));
+        Assertions.assertEquals(Collections.singletonList("plain"), calls);
+        Assertions.assertEquals(2, queue.getPendingCount());
+        
+        Assertions.assertEquals(2, queue.flush());
+        Assertions.assertEquals(Arrays.asList("plain", "a=2", "b=1"), calls);
+        Assertions.assertEquals(0, queue.getPendingCount());
+        Assertions.assertEquals(0, queue.flush());
+    }
+    
+    /**
+     * Checks that a flush started while another is calling its
+     * {@link Event Events} waits for it, so that newer
+     * {@link Event Events} are never called before older ones.
+     * 
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    void flushesDoNotOverlap() throws InterruptedException {
+        
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new StateListener(calls), CoalescingQueueTest.LOGGER);
+        eventBus.registerListener(new BlockingListener(entered, release), CoalescingQueueTest.LOGGER);
+        final CoalescingQueue queue = new CoalescingQueue(eventBus);
+        
+        queue.offer(new StateEvent("block", 1));
+        final Thread first = new Thread(queue::flush);
+        first.start();
+        Assertions.assertTrue(entered.await(5L, TimeUnit.SECONDS));
+        
+        queue.offer(new StateEvent("a", 2));
+        final Thread second = new Thread(queue::flush);
+        second.start();
+        second.join(200L);
+        Assertions.assertEquals(Collections.emptyList(), calls);
+        
+        release.countDown();
+        first.join();
+        second.join();
+        Assertions.assertEquals(Arrays.asList("block=1", "a=2"), calls);
+    }
+    
+    /**
+     * Checks that a scheduled flush that throws does not stop later flushes.
+     * 
+     * @throws InterruptedException If the test is interrupted.
+     */
+    @Test
+    void scheduledFlushSurvivesExceptions() throws InterruptedException {
+        
+        final List<String> calls = Collections.synchronizedList(new ArrayList<String>());
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new StateListener(calls), CoalescingQueueTest.LOGGER);
+        final CoalescingQueue queue = new CoalescingQueue(eventBus);
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            queue.offer(new FailingEvent());
+            queue.scheduleFlush(executor, 10L, TimeUnit.MILLISECONDS);
+            while (queue.getPendingCount() != 0) {
+                Thread.sleep(5L);
+            }
+            
+            queue.offer(new StateEvent("a", 1));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (calls.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5L);
+            }
+            Assertions.assertEquals(Collections.singletonList("a=1"), calls);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * A {@link Coalescing} {@link Event} carrying the latest value for a key.
+     */
+    public static final class StateEvent extends Event implements Coalescing {
+        
+        private final String key;
+        private final int value;
+        
+        /**
+         * Constructs a new {@link StateEvent}.
+         * 
+         * @param key The key of the state.
+         * @param value The latest value of the state.
+         */
+        StateEvent(@NotNull final String key, final int value) {
+            this.key = key;
+            this.value = value;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public Object getCoalescingKey() {
+            return this.key;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public String toString() {
+            return this.key + "=" + this.value;
+        }
+    }
+    
+    /**
+     * A {@link Coalescing} {@link Event} whose {@link Keyed#getEventKey()}
+     * throws the first time it is called, making the flush throw.
+     */
+    public static final class FailingEvent extends Event implements Coalescing, Keyed {
+        
+        private final AtomicBoolean failed = new AtomicBoolean(false);
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public Object getCoalescingKey() {
+            return "failing";
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @NotNull
+        public Object getEventKey() {
+            if (this.failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Thrown by the test.");
+            }
+            return "failing";
+        }
+    }
+    
+    /**
+     * An {@link Event} that is not {@link Coalescing}.
+     */
+    public static final class PlainEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link EventListener} that records the {@link Event Events} it sees.
+     */
+    public static final class StateListener implements EventListener {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link StateListener}.
+         * 
+         * @param calls The {@link List} to record the calls to.
+         */
+        StateListener(@NotNull final List<String> calls) {
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the {@link StateEvent}.
+         * 
+         * @param event The {@link StateEvent}.
+         */
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onState(@NotNull final StateEvent event) {
+            this.calls.add(event.toString());
+        }
+        
+        /**
+         * Records the {@link PlainEvent}.
+         * 
+         * @param event The {@link PlainEvent}.
+         */
+        @EventHandler
+        public void onPlain(@NotNull final PlainEvent event) {
+            this.calls.add("plain");
+        }
+    }
+    
+    /**
+     * An {@link EventListener} that holds up the first flush until released.
+     */
+    public static final class BlockingListener implements EventListener {
+        
+        private final CountDownLatch entered;
+        private final CountDownLatch release;
+        
+        /**
+         * Constructs a new {@link BlockingListener}.
+         * 
+         * @param entered Counted down once the flush is being held up.
+         * @param release Awaited before the flush continues.
+         */
+        BlockingListener(@NotNull final CountDownLatch entered, @NotNull final CountDownLatch release) {
+            this.entered = entered;
+            this.release = release;
+        }
+        
+        /**
+         * Holds up the flush of the {@link StateEvent} with the key
+         * {@code "block"}.
+         * 
+         * @param event The {@link StateEvent}.
+         * @throws InterruptedException If the test is interrupted.
+         */
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onState(@NotNull final StateEvent event) throws InterruptedException {
+            if (event.getCoalescingKey().equals("block")) {
+                this.entered.countDown();
+                this.release.await(5L, TimeUnit.SECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a generated {@link Dispatcher} calls the same
+ * {@link EventHandler EventHandlers}, in the same order and with the same
+ * outcome, as the generic dispatch loop.
+ */
+final class DispatcherCompilerTest {
+    
+    private static final int CALLS = 60;
+    
+    /**
+     * Checks a single {@link HandlerSlot} that ignores cancelled
+     * {@link Event Events} and sometimes throws.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void singleSlotMatchesGenericLoop() throws Exception {
+        DispatcherCompilerTest.assertEquivalent(0);
+    }
+    
+    /**
+     * Checks the most {@link HandlerSlot HandlerSlots} that a
+     * {@link Dispatcher} is generated for, with mixed priorities, and with
+     * {@link EventHandler EventHandlers} that cancel, ignore cancelled
+     * {@link Event Events}, block and throw.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void maximumSlotsMatchGenericLoop() throws Exception {
+        DispatcherCompilerTest.assertEquivalent(DispatcherCompiler.MAX_HANDLERS / MixedListener.HANDLERS);
+    }
+    
+    /**
+     * Checks that registering and unregistering an {@link EventListener} for
+     * an unrelated type of {@link Event} neither discards the generated
+     * {@link Dispatcher} nor resets the count of calls towards one.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void unrelatedRegistrationKeepsDispatcher() throws Exception {
+        
+        Assumptions.assumeTrue(DispatcherCompilerTest.hasHiddenClasses());
+        
+        final EventBus eventBus = DispatcherCompilerTest.createEventBus(4, 1, new StringBuilder());
+        final Logger logger = Logger.getLogger(DispatcherCompilerTest.class.getName());
+        for (int seed = 1; seed <= 3; seed++) {
+            eventBus.callEvent(new TestEvent(seed, false));
+        }
+        eventBus.registerListener(new OtherListener(), logger).unregister();
+        for (int seed = 4; seed <= 5; seed++) {
+            eventBus.callEvent(new TestEvent(seed, false));
+        }
+        final Dispatcher dispatcher = DispatcherCompilerTest.getDispatcher(eventBus);
+        Assertions.assertNotNull(dispatcher);
+        
+        eventBus.registerListener(new OtherListener(), logger);
+        Assertions.assertSame(dispatcher, DispatcherCompilerTest.getDispatcher(eventBus));
+    }
+    
+    /**
+     * Calls the same {@link Event Events} on an {@link EventBus} that only
+     * uses the generic loop and on one that generates a {@link Dispatcher},
+     * and checks that both record the same trace.
+     * 
+     * @param mixedListeners The number of {@link MixedListener MixedListeners}
+     *                       to register, or {@code 0} to register a single
+     *                       {@link SingleListener} instead.
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    private static void assertEquivalent(final int mixedListeners) throws Exception {
+        
+        Assumptions.assumeTrue(DispatcherCompilerTest.hasHiddenClasses());
+        
+        final StringBuilder genericTrace = new StringBuilder();
+        final StringBuilder compiledTrace = new StringBuilder();
+        final EventBus generic = DispatcherCompilerTest.createEventBus(-1, mixedListeners, genericTrace);
+        final EventBus compiled = DispatcherCompilerTest.createEventBus(1, mixedListeners, compiledTrace);
+        
+        for (int seed = 0; seed < DispatcherCompilerTest.CALLS; seed++) {
+            final boolean cancelled = seed % 7 == 0;
+            genericTrace.append(generic.callEvent(new TestEvent(seed, cancelled))).append('\n');
+            compiledTrace.append(compiled.callEvent(new TestEvent(seed, cancelled))).append('\n');
+        }
+        
+        Assertions.assertNull(DispatcherCompilerTest.getDispatcher(generic));
+        Assertions.assertNotNull(DispatcherCompilerTest.getDispatcher(compiled));
+        Assertions.assertEquals(genericTrace.toString(), compiledTrace.toString());
+    }
+    
+    /**
+     * Creates an {@link EventBus} that calls blocking
+     * {@link EventHandler EventHandlers} inline, so that the trace is
+     * deterministic. Logging is disabled, as some of the
+     * {@link EventHandler EventHandlers} throw.
+     * 
+     * @param threshold The dispatcher threshold of the {@link EventBus}.
+     * @param mixedListeners The number of {@link MixedListener MixedListeners}
+     *                       to register, or {@code 0} to register a single
+     *                       {@link SingleListener} instead.
+     * @param trace The trace that the {@link EventListener EventListeners}
+     *              record their calls to.
+     * @return The new {@link EventBus}.
+     */
+    @NotNull
+    private static EventBus createEventBus(final int threshold, final int mixedListeners, @NotNull final StringBuilder trace) {
+        
+        final Logger logger = Logger.getLogger(DispatcherCompilerTest.class.getName());
+        logger.setLevel(Level.OFF);
+        
+        final EventBus eventBus = new EventBus();
+        eventBus.setDispatcherThreshold(threshold);
+        eventBus.setBlockingExecutor(Runnable::run);
+        if (mixedListeners == 0) {
+            eventBus.registerListener(new SingleListener(trace), logger);
+        }
+        for (int id = 0; id < mixedListeners; id++) {
+            eventBus.registerListener(new MixedListener(id, trace), logger);
+        }
+        return eventBus;
+    }
+    
+    /**
+     * Gets the generated {@link Dispatcher} for the {@link TestEvent}, if any.
+     * 
+     * @param eventBus The {@link EventBus} to get the {@link Dispatcher} from.
+     * @return The generated {@link Dispatcher}, or {@code null} if none has
+     *         been generated.
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    private static Dispatcher getDispatcher(@NotNull final EventBus eventBus) throws Exception {
+        final Method getDispatchTable = EventBus.class.getDeclaredMethod("getDispatchTable", Class.class);
+        getDispatchTable.setAccessible(true);
+        return ((DispatchTable) getDispatchTable.invoke(eventBus, TestEvent.class)).getDispatcher();
+    }
+    
+    /**
+     * Determines if the runtime supports hidden classes, without which no
+     * {@link Dispatcher} is generated.
+     * 
+     * @return {@code true} if hidden classes are supported, {@code false}
+     *         otherwise.
+     */
+    static boolean hasHiddenClasses() {
+        try {
+            Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * A {@link Cancellable} {@link Event} whose seed decides what each
+     * {@link EventHandler} does with it.
+     */
+    public static final class TestEvent extends Event implements Cancellable {
+        
+        private final int seed;
+        private boolean cancelled;
+        
+        /**
+         * Constructs a new {@link TestEvent}.
+         * 
+         * @param seed The seed of the {@link TestEvent}.
+         * @param cancelled {@code true} if the {@link TestEvent} starts off
+         *                  cancelled, {@code false} otherwise.
+         */
+        TestEvent(final int seed, final boolean cancelled) {
+            this.seed = seed;
+            this.cancelled = cancelled;
+        }
+        
+        /**
+         * Gets the seed of this {@link TestEvent}.
+         * 
+         * @return The seed.
+         */
+        int getSeed() {
+            return this.seed;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setCancelled(final boolean cancelled) {
+            this.cancelled = cancelled;
+        }
+    }
+    
+    /**
+     * An {@link Event} unrelated to the {@link TestEvent}.
+     */
+    public static final class OtherEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link EventListener} for the {@link OtherEvent}.
+     */
+    public static final class OtherListener implements EventListener {
+        
+        /**
+         * Does nothing.
+         * 
+         * @param event The {@link OtherEvent}.
+         */
+        @EventHandler
+        public void onOther(@NotNull final OtherEvent event) {
+            // Do nothing.
+        }
+    }
+    
+    /**
+     * An {@link EventListener} with a single {@link EventHandler} that ignores
+     * cancelled {@link TestEvent TestEvents} and sometimes throws.
+     */
+    public static final class SingleListener implements EventListener {
+        
+        private final StringBuilder trace;
+        
+        /**
+         * Constructs a new {@link SingleListener}.
+         * 
+         * @param trace The trace to record calls to.
+         */
+        SingleListener(@NotNull final StringBuilder trace) {
+            this.trace = trace;
+        }
+        
+        /**
+         * Records the call, and throws for every third seed.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(ignoreCancelled = true)
+        public void onEvent(@NotNull final TestEvent event) {
+            this.trace.append("single ");
+            if (event.getSeed() % 3 == 0) {
+                throw new IllegalStateException("Thrown by the test.");
+            }
+        }
+    }
+    
+    /**
+     * An {@link EventListener} with {@link EventHandler EventHandlers} at
+     * several priorities, which cancel, uncancel, ignore cancelled
+     * {@link TestEvent TestEvents}, block and throw depending on the seed of
+     * the {@link TestEvent} and the id of the {@link MixedListener}.
+     */
+    public static final class MixedListener implements EventListener {
+        
+        static final int HANDLERS = 4;
+        
+        private final int id;
+        private final StringBuilder trace;
+        
+        /**
+         * Constructs a new {@link MixedListener}.
+         * 
+         * @param id The id of the {@link MixedListener}.
+         * @param trace The trace to record calls to.
+         */
+        MixedListener(final int id, @NotNull final StringBuilder trace) {
+            this.id = id;
+            this.trace = trace;
+        }
+        
+        /**
+         * Records the call, and cancels the {@link TestEvent} for some seeds.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOWEST)
+        public void onLowest(@NotNull final TestEvent event) {
+            this.trace.append(this.id).append("a ");
+            if ((this.id + event.getSeed()) % 11 == 0) {
+                event.setCancelled(true);
+            }
+        }
+        
+        /**
+         * Records the call, and throws for some seeds.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(ignoreCancelled = true)
+        public void onNormal(@NotNull final TestEvent event) {
+            this.trace.append(this.id).append("b ");
+            if ((this.id + event.getSeed()) % 5 == 0) {
+                throw new IllegalStateException("Thrown by the test.");
+            }
+        }
+        
+        /**
+         * Records the call, and toggles whether the {@link TestEvent} is
+         * cancelled for some seeds.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(priority = EventPriority.HIGH)
+        public void onHigh(@NotNull final TestEvent event) {
+            this.trace.append(this.id).append("c ");
+            if ((this.id * 3 + event.getSeed()) % 13 == 0) {
+                event.setCancelled(!event.isCancelled());
+            }
+        }
+        
+        /**
+         * Records the call, if the {@link TestEvent} is not cancelled.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true, blocking = true)
+        public void onMonitor(@NotNull final TestEvent event) {
+            this.trace.append(this.id).append("d ");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks how the {@link EventBus} finds and registers the
+ * {@link EventHandler} methods of an {@link EventListener}.
+ */
+final class EventBusTest {
+    
+    /**
+     * Checks that the bridge method that javac generates for a generic
+     * interface method, which copies the {@link EventHandler} annotation but
+     * accepts any {@link Event}, is not registered.
+     */
+    @Test
+    void bridgeMethodsAreNotRegistered() {
+        
+        final RecordingHandler records = new RecordingHandler();
+        final EventBus eventBus = new EventBus();
+        final BridgedListener listener = new BridgedListener();
+        eventBus.registerListener(listener, EventBusTest.createLogger(records));
+        
+        eventBus.callEvent(new FirstEvent());
+        Assertions.assertEquals(1, listener.calls);
+        
+        eventBus.callEvent(new SecondEvent());
+        Assertions.assertEquals(1, listener.calls);
+        Assertions.assertEquals(new ArrayList<String>(), records.messages);
+    }
+    
+    /**
+     * Creates a {@link Logger} that only records to the specified
+     * {@link RecordingHandler}.
+     * 
+     * @param records The {@link RecordingHandler} to record to.
+     * @return The new {@link Logger}.
+     */
+    @NotNull
+    static Logger createLogger(@NotNull final RecordingHandler records) {
+        final Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(records);
+        return logger;
+    }
+    
+    /**
+     * A {@link Handler} that records the message of every {@link LogRecord}.
+     */
+    static final class RecordingHandler extends Handler {
+        
+        private final List<String> messages = new ArrayList<String>();
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void publish(@Nullable final LogRecord record) {
+            if (record != null) {
+                this.messages.add(record.getMessage());
+            }
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void flush() {
+            // Do nothing.
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            // Do nothing.
+        }
+        
+        /**
+         * Gets the messages recorded so far.
+         * 
+         * @return The recorded messages, in order.
+         */
+        @NotNull
+        List<String> getMessages() {
+            return this.messages;
+        }
+    }
+    
+    /**
+     * A generic handler interface, whose implementations get a bridge method.
+     * 
+     * @param <E> The type of {@link Event} that is handled.
+     */
+    public interface GenericHandler<E extends Event> {
+        
+        /**
+         * Handles the {@link Event}.
+         * 
+         * @param event The {@link Event}.
+         */
+        void on(@NotNull E event);
+    }
+    
+    /**
+     * The {@link Event} that the {@link BridgedListener} handles.
+     */
+    public static final class FirstEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link Event} that the {@link BridgedListener} does not handle.
+     */
+    public static final class SecondEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link EventListener} that implements a {@link GenericHandler}.
+     */
+    public static final class BridgedListener implements EventListener, GenericHandler<FirstEvent> {
+        
+        private int calls;
+        
+        /**
+         * Counts the call.
+         * 
+         * @param event The {@link FirstEvent}.
+         */
+        @Override
+        @EventHandler
+        public void on(@NotNull final FirstEvent event) {
+            this.calls++;
+        }
+    }
+}
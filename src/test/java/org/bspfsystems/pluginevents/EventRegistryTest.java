@@ -0,0 +1,192 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that changing the registrations of an {@link EventBus} only
+ * replaces the {@link DispatchTable DispatchTables} of the affected types of
+ * {@link Event}.
+ */
+final class EventRegistryTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(EventRegistryTest.class.getName());
+    
+    static {
+        EventRegistryTest.LOGGER.setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that registering and unregistering an {@link EventListener} for
+     * an unrelated type of {@link Event} keeps the {@link DispatchTable}.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void unrelatedChangesKeepDispatchTable() throws Exception {
+        
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new FirstListener(), EventRegistryTest.LOGGER);
+        final DispatchTable table = EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class);
+        
+        final Registration registration = eventBus.registerListener(new SecondListener(), EventRegistryTest.LOGGER);
+        Assertions.assertSame(table, EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class));
+        registration.unregister();
+        Assertions.assertSame(table, EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class));
+    }
+    
+    /**
+     * Checks that registering an {@link EventListener} for the type of
+     * {@link Event} itself, or for one of its supertypes, replaces the
+     * {@link DispatchTable}.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void relatedChangesReplaceDispatchTable() throws Exception {
+        
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new FirstListener(), EventRegistryTest.LOGGER);
+        final DispatchTable table = EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class);
+        
+        eventBus.registerListener(new FirstListener(), EventRegistryTest.LOGGER);
+        final DispatchTable same = EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class);
+        Assertions.assertNotSame(table, same);
+        Assertions.assertEquals(2, same.getHandlers().length);
+        
+        eventBus.registerListener(new MarkedListener(), EventRegistryTest.LOGGER);
+        final DispatchTable supertype = EventRegistryTest.getDispatchTable(eventBus, FirstEvent.class);
+        Assertions.assertNotSame(same, supertype);
+        Assertions.assertEquals(3, supertype.getHandlers().length);
+    }
+    
+    /**
+     * Checks that an unrelated registration with the parent of a child
+     * {@link EventBus} keeps the {@link DispatchTable} of the child, while a
+     * related one replaces it.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void parentChangesOnlyReplaceAffectedChildDispatchTables() throws Exception {
+        
+        final EventBus parent = new EventBus();
+        final EventBus child = parent.createChild();
+        child.registerListener(new FirstListener(), EventRegistryTest.LOGGER);
+        final DispatchTable table = EventRegistryTest.getDispatchTable(child, FirstEvent.class);
+        
+        parent.registerListener(new SecondListener(), EventRegistryTest.LOGGER);
+        Assertions.assertSame(table, EventRegistryTest.getDispatchTable(child, FirstEvent.class));
+        
+        parent.registerListener(new FirstListener(), EventRegistryTest.LOGGER);
+        Assertions.assertEquals(2, EventRegistryTest.getDispatchTable(child, FirstEvent.class).getHandlers().length);
+    }
+    
+    /**
+     * Gets the current {@link DispatchTable} of the specified
+     * {@link EventBus} for the specified type of {@link Event}.
+     * 
+     * @param eventBus The {@link EventBus}.
+     * @param eventType The type of {@link Event}.
+     * @return The {@link DispatchTable}.
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @NotNull
+    static DispatchTable getDispatchTable(@NotNull final EventBus eventBus, @NotNull final Class<?> eventType) throws Exception {
+        final Method getDispatchTable = EventBus.class.getDeclaredMethod("getDispatchTable", Class.class);
+        getDispatchTable.setAccessible(true);
+        return (DispatchTable) getDispatchTable.invoke(eventBus, eventType);
+    }
+    
+    /**
+     * A marker interface for {@link Event Events}.
+     */
+    public interface Marked {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link Event} that is {@link Marked}.
+     */
+    public static final class FirstEvent extends Event implements Marked {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link Event} unrelated to the {@link FirstEvent}.
+     */
+    public static final class SecondEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link EventListener} for the {@link FirstEvent}.
+     */
+    public static final class FirstListener implements EventListener {
+        
+        /**
+         * Does nothing.
+         * 
+         * @param event The {@link FirstEvent}.
+         */
+        @EventHandler
+        public void onFirst(@NotNull final FirstEvent event) {
+            // Do nothing.
+        }
+    }
+    
+    /**
+     * An {@link EventListener} for the {@link SecondEvent}.
+     */
+    public static final class SecondListener implements EventListener {
+        
+        /**
+         * Does nothing.
+         * 
+         * @param event The {@link SecondEvent}.
+         */
+        @EventHandler
+        public void onSecond(@NotNull final SecondEvent event) {
+            // Do nothing.
+        }
+    }
+    
+    /**
+     * An {@link EventListener} for every {@link Marked} {@link Event}.
+     */
+    public static final class MarkedListener implements EventListener {
+        
+        /**
+         * Does nothing.
+         * 
+         * @param event The {@link Marked} {@link Event}.
+         */
+        @EventHandler
+        public void onMarked(@NotNull final Marked event) {
+            // Do nothing.
+        }
+    }
+}
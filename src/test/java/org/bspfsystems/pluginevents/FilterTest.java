@@ -0,0 +1,279 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link EventHandler#filters() filters} are shared, tested once
+ * per {@link Event}, and only skip the {@link EventHandler EventHandlers} that
+ * name them.
+ */
+final class FilterTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(FilterTest.class.getName());
+    
+    static {
+        FilterTest.LOGGER.setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that every {@link EventHandler} naming a filter shares one
+     * instance of it, and that it is tested once per {@link Event} no matter
+     * how many of them name it.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void sharedFilterIsTestedOncePerEvent() {
+        
+        CountingFilter.reset();
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new CountedListener("first", calls), FilterTest.LOGGER);
+        eventBus.registerListener(new CountedListener("second", calls), FilterTest.LOGGER);
+        
+        final Class<? extends Predicate<?>>[] types = (Class<? extends Predicate<?>>[]) new Class<?>[] { CountingFilter.class };
+        Assertions.assertSame(EventFilters.get(types)[0], EventFilters.get(types)[0]);
+        
+        eventBus.callEvent(new FilteredEvent(true));
+        Assertions.assertEquals(Arrays.asList("first:low", "second:low", "first:high", "second:high"), calls);
+        Assertions.assertEquals(1, CountingFilter.TESTS.get());
+        
+        calls.clear();
+        eventBus.callEvent(new FilteredEvent(false));
+        Assertions.assertEquals(Collections.emptyList(), calls);
+        Assertions.assertEquals(2, CountingFilter.TESTS.get());
+        
+        eventBus.callEvents(Arrays.asList(new FilteredEvent(true), new FilteredEvent(false), new FilteredEvent(true)));
+        Assertions.assertEquals(Arrays.asList("first:low", "first:low", "second:low", "second:low", "first:high", "first:high", "second:high", "second:high"), calls);
+        Assertions.assertEquals(5, CountingFilter.TESTS.get());
+        Assertions.assertEquals(1, CountingFilter.INSTANCES.size());
+    }
+    
+    /**
+     * Checks that a filter that throws only skips the
+     * {@link EventHandler EventHandlers} that name it, and is logged.
+     */
+    @Test
+    void failingFilterOnlySkipsItsHandler() {
+        
+        final EventBusTest.RecordingHandler records = new EventBusTest.RecordingHandler();
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new FailingListener(calls), EventBusTest.createLogger(records));
+        
+        eventBus.callEvent(new FilteredEvent(true));
+        Assertions.assertEquals(Arrays.asList("unfiltered", "counted"), calls);
+        Assertions.assertEquals("Unable to test EventHandler filter.", records.getMessages().get(0));
+    }
+    
+    /**
+     * Checks that no {@link Dispatcher} is generated for a
+     * {@link DispatchTable} with filters, as the generated dispatchers do not
+     * test them.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read.
+     */
+    @Test
+    void filteredTablesAreNeverCompiled() throws Exception {
+        
+        Assumptions.assumeTrue(DispatcherCompilerTest.hasHiddenClasses());
+        
+        final EventBus eventBus = new EventBus();
+        eventBus.setDispatcherThreshold(1);
+        eventBus.registerListener(new CountedListener("first", new ArrayList<String>()), FilterTest.LOGGER);
+        for (int count = 0; count < 10; count++) {
+            eventBus.callEvent(new FilteredEvent(false));
+        }
+        
+        Assertions.assertNull(EventRegistryTest.getDispatchTable(eventBus, FilteredEvent.class).getDispatcher());
+    }
+    
+    /**
+     * An {@link Event} that either passes or fails the filters.
+     */
+    public static final class FilteredEvent extends Event {
+        
+        private final boolean accepted;
+        
+        /**
+         * Constructs a new {@link FilteredEvent}.
+         * 
+         * @param accepted {@code true} if the {@link FilteredEvent} passes
+         *                 the filters, {@code false} otherwise.
+         */
+        FilteredEvent(final boolean accepted) {
+            this.accepted = accepted;
+        }
+        
+        /**
+         * Determines if this {@link FilteredEvent} passes the filters.
+         * 
+         * @return {@code true} if this {@link FilteredEvent} passes the
+         *         filters, {@code false} otherwise.
+         */
+        boolean isAccepted() {
+            return this.accepted;
+        }
+    }
+    
+    /**
+     * A filter that counts its tests and instances.
+     */
+    public static final class CountingFilter implements Predicate<FilteredEvent> {
+        
+        private static final AtomicInteger TESTS = new AtomicInteger();
+        private static final Set<CountingFilter> INSTANCES = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<CountingFilter, Boolean>()));
+        
+        /**
+         * Clears the counted tests and instances.
+         */
+        static void reset() {
+            CountingFilter.TESTS.set(0);
+            CountingFilter.INSTANCES.clear();
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean test(@NotNull final FilteredEvent event) {
+            CountingFilter.TESTS.incrementAndGet();
+            CountingFilter.INSTANCES.add(this);
+            return event.isAccepted();
+        }
+    }
+    
+    /**
+     * A filter that always throws.
+     */
+    public static final class FailingFilter implements Predicate<FilteredEvent> {
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean test(@NotNull final FilteredEvent event) {
+            throw new IllegalStateException("Thrown by the test.");
+        }
+    }
+    
+    /**
+     * An {@link EventListener} whose {@link EventHandler EventHandlers} all
+     * name the {@link CountingFilter}.
+     */
+    public static final class CountedListener implements EventListener {
+        
+        private final String name;
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link CountedListener}.
+         * 
+         * @param name The name to record the calls with.
+         * @param calls The {@link List} to record the calls to.
+         */
+        CountedListener(@NotNull final String name, @NotNull final List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link FilteredEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOW, filters = CountingFilter.class)
+        public void onLow(@NotNull final FilteredEvent event) {
+            this.calls.add(this.name + ":low");
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link FilteredEvent}.
+         */
+        @EventHandler(priority = EventPriority.HIGH, filters = CountingFilter.class)
+        public void onHigh(@NotNull final FilteredEvent event) {
+            this.calls.add(this.name + ":high");
+        }
+    }
+    
+    /**
+     * An {@link EventListener} with one {@link EventHandler} that names the
+     * {@link FailingFilter}, between two others that do not.
+     */
+    public static final class FailingListener implements EventListener {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link FailingListener}.
+         * 
+         * @param calls The {@link List} to record the calls to.
+         */
+        FailingListener(@NotNull final List<String> calls) {
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link FilteredEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOW)
+        public void onUnfiltered(@NotNull final FilteredEvent event) {
+            this.calls.add("unfiltered");
+        }
+        
+        /**
+         * Never called, as its filter throws.
+         * 
+         * @param event The {@link FilteredEvent}.
+         */
+        @EventHandler(filters = FailingFilter.class)
+        public void onFailing(@NotNull final FilteredEvent event) {
+            this.calls.add("failing");
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link FilteredEvent}.
+         */
+        @EventHandler(priority = EventPriority.HIGH, filters = CountingFilter.class)
+        public void onCounted(@NotNull final FilteredEvent event) {
+            this.calls.add("counted");
+        }
+    }
+}
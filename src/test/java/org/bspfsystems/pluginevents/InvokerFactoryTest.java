@@ -0,0 +1,226 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bspfsystems.pluginevents;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link EventHandler} methods of an {@link EventListener} loaded
+ * by a separate {@link ClassLoader}, as every plugin is, get a direct invoker
+ * rather than one of the fallbacks.
+ */
+final class InvokerFactoryTest {
+    
+    private static final String LISTENER_NAME = InvokerFactoryTest.class.getName() + "$PluginListener";
+    private static final Logger LOGGER = Logger.getLogger(InvokerFactoryTest.class.getName());
+    
+    /**
+     * Checks the invokers of a strongly-registered {@link EventListener}.
+     * 
+     * @throws Exception If the {@link EventListener} could not be loaded.
+     */
+    @Test
+    void crossLoaderListenerGetsDirectInvokers() throws Exception {
+        try (final URLClassLoader loader = InvokerFactoryTest.createPluginLoader()) {
+            final EventListener listener = InvokerFactoryTest.loadListener(loader);
+            final RecordingEvent event = new RecordingEvent();
+            for (final String name : new String[] {"onInstance", "onStatic"}) {
+                final Method method = listener.getClass().getMethod(name, RecordingEvent.class);
+                final Consumer<Event> invoker = InvokerFactory.create(listener, method, RecordingEvent.class, InvokerFactoryTest.LOGGER);
+                InvokerFactoryTest.assertDirect(invoker);
+                invoker.accept(event);
+            }
+            Assertions.assertEquals(2, event.getCalls().size());
+        }
+    }
+    
+    /**
+     * Checks the invokers of a weakly-registered {@link EventListener}, which
+     * call unbound invokers.
+     * 
+     * @throws Exception If the {@link EventListener} could not be loaded.
+     */
+    @Test
+    void crossLoaderWeakListenerGetsDirectInvokers() throws Exception {
+        try (final URLClassLoader loader = InvokerFactoryTest.createPluginLoader()) {
+            final EventListener listener = InvokerFactoryTest.loadListener(loader);
+            final WeakReference<EventListener> reference = new WeakReference<EventListener>(listener);
+            final RecordingEvent event = new RecordingEvent();
+            for (final String name : new String[] {"onInstance", "onStatic"}) {
+                final Method method = listener.getClass().getMethod(name, RecordingEvent.class);
+                final Consumer<Event> invoker = InvokerFactory.createWeak(reference, method, RecordingEvent.class, InvokerFactoryTest.LOGGER);
+                InvokerFactoryTest.assertDirect(InvokerFactoryTest.getUnbound(invoker));
+                invoker.accept(event);
+            }
+            Assertions.assertEquals(2, event.getCalls().size());
+        }
+    }
+    
+    /**
+     * Checks that an {@link EventBus} calls a cross-loader
+     * {@link EventListener}.
+     * 
+     * @throws Exception If the {@link EventListener} could not be loaded.
+     */
+    @Test
+    void crossLoaderListenerIsCalled() throws Exception {
+        try (final URLClassLoader loader = InvokerFactoryTest.createPluginLoader()) {
+            final EventBus eventBus = new EventBus();
+            eventBus.registerListener(InvokerFactoryTest.loadListener(loader), InvokerFactoryTest.LOGGER);
+            final RecordingEvent event = new RecordingEvent();
+            eventBus.callEvent(event);
+            Assertions.assertEquals(2, event.getCalls().size());
+        }
+    }
+    
+    /**
+     * Creates a {@link URLClassLoader} that loads the {@link PluginListener}
+     * itself, rather than delegating to its parent, so that it is loaded
+     * separately from the library, as a plugin would be.
+     * 
+     * @return The new {@link URLClassLoader}.
+     */
+    @NotNull
+    private static URLClassLoader createPluginLoader() {
+        final URL classes = InvokerFactoryTest.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[] {classes}, InvokerFactoryTest.class.getClassLoader()) {
+            @Override
+            protected Class<?> loadClass(@NotNull final String name, final boolean resolve) throws ClassNotFoundException {
+                if (!name.equals(InvokerFactoryTest.LISTENER_NAME)) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (this.getClassLoadingLock(name)) {
+                    final Class<?> loaded = this.findLoadedClass(name);
+                    return loaded != null ? loaded : this.findClass(name);
+                }
+            }
+        };
+    }
+    
+    /**
+     * Loads and instantiates the {@link PluginListener} from the specified
+     * {@link ClassLoader}.
+     * 
+     * @param loader The {@link ClassLoader} to load the listener from.
+     * @return The new {@link EventListener}.
+     * @throws Exception If the {@link EventListener} could not be loaded.
+     */
+    @NotNull
+    private static EventListener loadListener(@NotNull final ClassLoader loader) throws Exception {
+        final Class<?> listenerClass = loader.loadClass(InvokerFactoryTest.LISTENER_NAME);
+        Assertions.assertNotSame(PluginListener.class, listenerClass);
+        return (EventListener) listenerClass.getConstructor().newInstance();
+    }
+    
+    /**
+     * Gets the unbound invoker called by the specified weak invoker.
+     * 
+     * @param invoker The weak invoker.
+     * @return The unbound invoker.
+     * @throws Exception If the unbound invoker could not be read.
+     */
+    @NotNull
+    private static Object getUnbound(@NotNull final Consumer<Event> invoker) throws Exception {
+        final Field field = invoker.getClass().getDeclaredField("unbound");
+        field.setAccessible(true);
+        final Object unbound = ((WeakReference<?>) field.get(invoker)).get();
+        Assertions.assertNotNull(unbound);
+        return unbound;
+    }
+    
+    /**
+     * Asserts that the specified invoker is not one of the fallback invokers
+     * of the {@link InvokerFactory}.
+     * 
+     * @param invoker The invoker to check.
+     */
+    private static void assertDirect(@NotNull final Object invoker) {
+        final String name = invoker.getClass().getName();
+        Assertions.assertFalse(name.contains("MethodHandleInvoker"), name);
+        Assertions.assertFalse(name.contains("ReflectiveInvoker"), name);
+    }
+    
+    /**
+     * An {@link Event} that records the {@link EventHandler EventHandlers}
+     * that handled it.
+     */
+    public static final class RecordingEvent extends Event {
+        
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link RecordingEvent}.
+         */
+        public RecordingEvent() {
+            this.calls = new ArrayList<String>();
+        }
+        
+        /**
+         * Gets the {@link EventHandler EventHandlers} that handled this
+         * {@link RecordingEvent}.
+         * 
+         * @return The names of the {@link EventHandler} methods.
+         */
+        @NotNull
+        public List<String> getCalls() {
+            return this.calls;
+        }
+    }
+    
+    /**
+     * The {@link EventListener} of the plugin, loaded separately by
+     * {@link #createPluginLoader()}.
+     */
+    public static final class PluginListener implements EventListener {
+        
+        /**
+         * An instance {@link EventHandler}.
+         * 
+         * @param event The {@link RecordingEvent}.
+         */
+        @EventHandler
+        public void onInstance(@NotNull final RecordingEvent event) {
+            event.getCalls().add("onInstance");
+        }
+        
+        /**
+         * A static {@link EventHandler}.
+         * 
+         * @param event The {@link RecordingEvent}.
+         */
+        @EventHandler
+        public static void onStatic(@NotNull final RecordingEvent event) {
+            event.getCalls().add("onStatic");
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@link Keyed} {@link Event Events} are routed to the
+ * {@link EventHandler EventHandlers} registered for their key, along with
+ * those registered without one.
+ */
+final class KeyedTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(KeyedTest.class.getName());
+    
+    static {
+        KeyedTest.LOGGER.setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that the {@link EventHandler EventHandlers} for a key are only
+     * called for {@link Event Events} with that key, and never for those with
+     * another key or no key.
+     */
+    @Test
+    void keyedHandlersOnlySeeTheirKey() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new TraceListener("all", calls), KeyedTest.LOGGER);
+        eventBus.registerKeyedListener("a", new TraceListener("a", calls), KeyedTest.LOGGER);
+        eventBus.registerKeyedListener("b", new TraceListener("b", calls), KeyedTest.LOGGER);
+        
+        eventBus.callEvent(new KeyedEvent("a"));
+        Assertions.assertEquals(Arrays.asList("all:low", "a:low", "all:high", "a:high"), calls);
+        
+        calls.clear();
+        eventBus.callEvent(new KeyedEvent("c"));
+        Assertions.assertEquals(Arrays.asList("all:low", "all:high"), calls);
+        
+        calls.clear();
+        eventBus.callEvent(new KeyedEvent(null));
+        Assertions.assertEquals(Arrays.asList("all:low", "all:high"), calls);
+    }
+    
+    /**
+     * Checks that the {@link EventHandler EventHandlers} for a key run in the
+     * same order as all others: by {@link EventPriority}, and then in the
+     * order that they were registered.
+     */
+    @Test
+    void keyedHandlersInterleaveWithUnkeyedHandlers() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerKeyedListener("a", new TraceListener("first", calls), KeyedTest.LOGGER);
+        eventBus.registerListener(new TraceListener("second", calls), KeyedTest.LOGGER);
+        eventBus.registerKeyedListener("a", new TraceListener("third", calls), KeyedTest.LOGGER);
+        
+        eventBus.callEvent(new KeyedEvent("a"));
+        Assertions.assertEquals(Arrays.asList("first:low", "second:low", "third:low", "first:high", "second:high", "third:high"), calls);
+    }
+    
+    /**
+     * Checks that unregistering the {@link EventHandler EventHandlers} for a
+     * key stops them being called, and that {@link EventBus#hasListeners}
+     * counts keyed {@link EventHandler EventHandlers}.
+     */
+    @Test
+    void unregisteredKeyedHandlersAreNotCalled() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        final Registration registration = eventBus.registerKeyedListener("a", new TraceListener("a", calls), KeyedTest.LOGGER);
+        Assertions.assertTrue(eventBus.hasListeners(KeyedEvent.class));
+        
+        eventBus.callEvent(new KeyedEvent("a"));
+        registration.unregister();
+        eventBus.callEvent(new KeyedEvent("a"));
+        Assertions.assertEquals(Arrays.asList("a:low", "a:high"), calls);
+        Assertions.assertFalse(eventBus.hasListeners(KeyedEvent.class));
+    }
+    
+    /**
+     * A {@link Keyed} {@link Event}.
+     */
+    public static final class KeyedEvent extends Event implements Keyed {
+        
+        private final Object key;
+        
+        /**
+         * Constructs a new {@link KeyedEvent}.
+         * 
+         * @param key The key of the {@link KeyedEvent}.
+         */
+        KeyedEvent(@Nullable final Object key) {
+            this.key = key;
+        }
+        
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        @Nullable
+        public Object getEventKey() {
+            return this.key;
+        }
+    }
+    
+    /**
+     * An {@link EventListener} that records its calls.
+     */
+    public static final class TraceListener implements EventListener {
+        
+        private final String name;
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link TraceListener}.
+         * 
+         * @param name The name to record the calls with.
+         * @param calls The {@link List} to record the calls to.
+         */
+        TraceListener(@NotNull final String name, @NotNull final List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link KeyedEvent}.
+         */
+        @EventHandler(priority = EventPriority.LOW)
+        public void onLow(@NotNull final KeyedEvent event) {
+            this.calls.add(this.name + ":low");
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link KeyedEvent}.
+         */
+        @EventHandler(priority = EventPriority.HIGH)
+        public void onHigh(@NotNull final KeyedEvent event) {
+            this.calls.add(this.name + ":high");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/* 
+ * This file is part of the PluginEvents library for
+ * plugins that do not depend or do not want to depend
+ * on the Bukkit API or BungeeCord API Events.
+ * 
+ * Copyright 2021-2022 BSPF Systems, LLC
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.bspfsystems.pluginevents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that weakly-registered {@link EventListener EventListeners} are
+ * pruned once collected, and that unregistering is idempotent.
+ */
+final class WeakListenerTest {
+    
+    private static final Logger LOGGER = Logger.getLogger(WeakListenerTest.class.getName());
+    
+    static {
+        WeakListenerTest.LOGGER.setLevel(Level.OFF);
+    }
+    
+    /**
+     * Checks that the {@link EventHandler EventHandlers} of a collected
+     * {@link EventListener} are removed the next time the registrations
+     * change, leaving all others in place.
+     * 
+     * @throws Exception If the {@link DispatchTable} could not be read, or
+     *                   the test is interrupted.
+     */
+    @Test
+    void collectedListenerIsPruned() throws Exception {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        eventBus.registerListener(new TestListener("strong", calls), WeakListenerTest.LOGGER);
+        final Registration weak = WeakListenerTest.registerWeakListener(eventBus, calls);
+        Assertions.assertEquals(2, EventRegistryTest.getDispatchTable(eventBus, TestEvent.class).getHandlers().length);
+        
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+        while (EventRegistryTest.getDispatchTable(eventBus, TestEvent.class).getHandlers().length != 1) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "The weak EventListener was not pruned.");
+            System.gc();
+            Thread.sleep(10L);
+            eventBus.registerListener(new OtherListener(), WeakListenerTest.LOGGER).unregister();
+        }
+        
+        eventBus.callEvent(new TestEvent());
+        Assertions.assertEquals(Collections.singletonList("strong"), calls);
+        
+        weak.unregister();
+        eventBus.callEvent(new TestEvent());
+        Assertions.assertEquals(Arrays.asList("strong", "strong"), calls);
+    }
+    
+    /**
+     * Checks that unregistering a {@link Registration} more than once only
+     * removes its own {@link EventHandler EventHandlers}, once.
+     */
+    @Test
+    void unregisterIsIdempotent() {
+        
+        final List<String> calls = new ArrayList<String>();
+        final EventBus eventBus = new EventBus();
+        final Registration first = eventBus.registerListener(new TestListener("first", calls), WeakListenerTest.LOGGER);
+        eventBus.registerListener(new TestListener("second", calls), WeakListenerTest.LOGGER);
+        
+        first.unregister();
+        first.unregister();
+        eventBus.callEvent(new TestEvent());
+        Assertions.assertEquals(Collections.singletonList("second"), calls);
+        Assertions.assertTrue(eventBus.hasListeners(TestEvent.class));
+    }
+    
+    /**
+     * Weakly registers a new {@link TestListener}, keeping no strong
+     * reference to it.
+     * 
+     * @param eventBus The {@link EventBus} to register it with.
+     * @param calls The {@link List} to record the calls to.
+     * @return The {@link Registration} of the {@link TestListener}.
+     */
+    @NotNull
+    private static Registration registerWeakListener(@NotNull final EventBus eventBus, @NotNull final List<String> calls) {
+        return eventBus.registerWeakListener(new TestListener("weak", calls), WeakListenerTest.LOGGER);
+    }
+    
+    /**
+     * An {@link Event} for the test.
+     */
+    public static final class TestEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An unrelated {@link Event}, used to change the registrations.
+     */
+    public static final class OtherEvent extends Event {
+        // Nothing to add.
+    }
+    
+    /**
+     * An {@link EventListener} that records its calls.
+     */
+    public static final class TestListener implements EventListener {
+        
+        private final String name;
+        private final List<String> calls;
+        
+        /**
+         * Constructs a new {@link TestListener}.
+         * 
+         * @param name The name to record the calls with.
+         * @param calls The {@link List} to record the calls to.
+         */
+        TestListener(@NotNull final String name, @NotNull final List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+        
+        /**
+         * Records the call.
+         * 
+         * @param event The {@link TestEvent}.
+         */
+        @EventHandler
+        public void onTest(@NotNull final TestEvent event) {
+            this.calls.add(this.name);
+        }
+    }
+    
+    /**
+     * An {@link EventListener} for the {@link OtherEvent}.
+     */
+    public static final class OtherListener implements EventListener {
+        
+        /**
+         * Does nothing.
+         * 
+         * @param event The {@link OtherEvent}.
+         */
+        @EventHandler
+        public void onOther(@NotNull final OtherEvent event) {
+            // Do nothing.
+        }
+    }
+}